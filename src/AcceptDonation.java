@@ -0,0 +1,112 @@
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+// Accepts one hospital request on behalf of a donor. Eligibility check, donation record, stock
+// increment and request status change happen in one transaction on the caller's connection; the
+// stock increment writes through StockCache.
+// The request and donor rows are locked first, so concurrent accepts of the same request, or of
+// two requests by the same donor, are serialized and re-checked instead of both going through.
+public class AcceptDonation {
+    public enum Outcome { ACCEPTED, UNDERAGE, RECENT_DONATION, ALREADY_HANDLED, NOT_FOUND }
+
+    static final int MIN_AGE = 18;
+    static final int MONTHS_BETWEEN_DONATIONS = 3;
+
+    private static final String LOCK_SQL =
+            "SELECT dr.hospital_id, dr.status, h.name AS hospital_name, d.age, d.blood_type, d.next_eligible_date " +
+            "FROM donor_requests dr " +
+            "JOIN donors d ON d.id = dr.donor_id " +
+            "LEFT JOIN hospitals h ON h.id = dr.hospital_id " +
+            "WHERE dr.id = ? AND dr.donor_id = ? " +
+            "FOR UPDATE OF dr, d";
+    private static final String INSERT_DONATION_SQL =
+            "INSERT INTO donation_history (donor_id, hospital_id, details, donation_date) VALUES (?, ?, ?, NOW())";
+    private static final String ACCEPT_SQL =
+            "UPDATE donor_requests SET status = 'accepted' WHERE id = ?";
+
+    private final int donorId;
+    private final int requestId;
+    private LocalDate nextEligible; // set once the donation is recorded
+    private int hospitalId;
+    private String bloodType;
+    private Map<Integer, Long> stockVersions; // from StockCache.touch
+
+    public AcceptDonation(int donorId, int requestId) {
+        this.donorId = donorId;
+        this.requestId = requestId;
+    }
+
+    public Outcome execute(Connection con) throws SQLException {
+        MigrationRunner.ensureMigrated();
+        boolean autoCommit = con.getAutoCommit();
+        int isolation = con.getTransactionIsolation();
+        // read committed so the locking read sees anything committed while we waited on the lock
+        con.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        con.setAutoCommit(false);
+        StockCache.beginWrite();
+        boolean committed = false;
+        try {
+            Outcome outcome = run(con);
+            if (outcome == Outcome.ACCEPTED) {
+                con.commit();
+                committed = true;
+                ChangeNotifier.bump(con, ChangeNotifier.DONOR_REQUESTS, ChangeNotifier.DONATIONS, ChangeNotifier.BLOOD_STOCKS);
+                EligibilityIndex.donated(donorId, nextEligible);
+                ActivityLog.append("Donor " + donorId + " accepted request #" + requestId);
+            }
+            return outcome;
+        } finally {
+            // any failure, checked or not, must not reach setAutoCommit(true) with work pending
+            if (committed) {
+                StockCache.endWrite(Map.of(hospitalId, Map.of(bloodType, 1)), stockVersions);
+            } else {
+                StockCache.abortWrite();
+                con.rollback();
+            }
+            con.setAutoCommit(autoCommit);
+            con.setTransactionIsolation(isolation);
+        }
+    }
+
+    private Outcome run(Connection con) throws SQLException {
+        String hospitalName;
+        try (PreparedStatement pst = con.prepareStatement(LOCK_SQL)) {
+            pst.setInt(1, requestId);
+            pst.setInt(2, donorId);
+            try (ResultSet rs = pst.executeQuery()) {
+                if (!rs.next()) return Outcome.NOT_FOUND;
+                String status = rs.getString("status");
+                if (status != null && status.equalsIgnoreCase("accepted")) return Outcome.ALREADY_HANDLED;
+                if (rs.getInt("age") < MIN_AGE) return Outcome.UNDERAGE;
+                hospitalId = rs.getInt("hospital_id");
+                hospitalName = rs.getString("hospital_name");
+                bloodType = rs.getString("blood_type");
+                Date next = rs.getDate("next_eligible_date");
+                if (next != null && LocalDate.now().isBefore(next.toLocalDate())) return Outcome.RECENT_DONATION;
+            }
+        }
+        if (bloodType == null || bloodType.trim().isEmpty()) bloodType = "A+";
+        else bloodType = bloodType.trim();
+
+        try (PreparedStatement pst = con.prepareStatement(INSERT_DONATION_SQL)) {
+            pst.setInt(1, donorId);
+            pst.setInt(2, hospitalId);
+            pst.setString(3, "Donation to " + hospitalName);
+            pst.executeUpdate();
+        }
+
+        nextEligible = EligibilityIndex.nextEligible(LocalDate.now());
+        EligibilityIndex.recordDonation(con, donorId, nextEligible);
+
+        StockAdjuster.adjust(con, hospitalId, bloodType, 1);
+        stockVersions = StockCache.touch(con, List.of(hospitalId));
+
+        try (PreparedStatement pst = con.prepareStatement(ACCEPT_SQL)) {
+            pst.setInt(1, requestId);
+            pst.executeUpdate();
+        }
+        return Outcome.ACCEPTED;
+    }
+}
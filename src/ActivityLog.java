@@ -0,0 +1,128 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Asynchronous activity_logs writer. append() only enqueues; a background thread drains the queue
+// and writes entries in batches, one commit per batch (group commit). When the queue is full new
+// entries wait up to activity.offerWaitMs and are then dropped and counted, so logging can never
+// stall the UI. Whatever is still queued is written at JVM exit.
+public class ActivityLog {
+    private static final int CAPACITY = Integer.parseInt(DBConnection.getSetting("activity.queueSize", "10000"));
+    private static final int MAX_BATCH = Integer.parseInt(DBConnection.getSetting("activity.maxBatch", "500"));
+    private static final long LINGER_MS = Long.parseLong(DBConnection.getSetting("activity.lingerMs", "50"));
+    private static final long OFFER_WAIT_MS = Long.parseLong(DBConnection.getSetting("activity.offerWaitMs", "0"));
+    private static final String INSERT_SQL = "INSERT INTO activity_logs (description, log_date) VALUES (?, ?)";
+
+    private static final BlockingQueue<Entry> QUEUE = new ArrayBlockingQueue<>(CAPACITY);
+    private static final Object WRITE_LOCK = new Object();
+
+    private static final AtomicLong appended = new AtomicLong();
+    private static final AtomicLong written = new AtomicLong();
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final AtomicLong failed = new AtomicLong();
+    private static final AtomicLong commits = new AtomicLong();
+
+    private static volatile boolean stopping;
+    private static final Thread FLUSHER = new Thread(ActivityLog::run, "drop4life-activity-log");
+
+    static {
+        FLUSHER.setDaemon(true);
+        FLUSHER.start();
+        DBConnection.addShutdownTask(ActivityLog::shutdown);
+    }
+
+    // Queues an entry; returns false if it was dropped because the queue stayed full.
+    public static boolean append(String description) {
+        Entry e = new Entry(description, new Timestamp(System.currentTimeMillis()));
+        boolean queued;
+        try {
+            queued = OFFER_WAIT_MS > 0 ? QUEUE.offer(e, OFFER_WAIT_MS, TimeUnit.MILLISECONDS) : QUEUE.offer(e);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (queued) appended.incrementAndGet();
+        else dropped.incrementAndGet();
+        return queued;
+    }
+
+    public static String stats() {
+        return String.format("activity-log[queued=%d appended=%d written=%d commits=%d dropped=%d failed=%d]",
+                QUEUE.size(), appended.get(), written.get(), commits.get(), dropped.get(), failed.get());
+    }
+
+    private static void run() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH);
+        while (!stopping) {
+            try {
+                Entry first = QUEUE.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                // let concurrent appends join this commit
+                if (LINGER_MS > 0 && QUEUE.size() < MAX_BATCH - 1) Thread.sleep(LINGER_MS);
+                QUEUE.drainTo(batch, MAX_BATCH - 1);
+                write(batch);
+            } catch (InterruptedException ex) {
+                write(batch); // shutdown interrupted the linger; don't lose what was already taken
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private static void shutdown() {
+        stopping = true;
+        FLUSHER.interrupt();
+        try {
+            FLUSHER.join(5_000);
+        } catch (InterruptedException ignored) {}
+        List<Entry> rest = new ArrayList<>();
+        QUEUE.drainTo(rest);
+        for (int from = 0; from < rest.size(); from += MAX_BATCH) {
+            write(rest.subList(from, Math.min(rest.size(), from + MAX_BATCH)));
+        }
+        if (Boolean.getBoolean("drop4life.poolStats")) System.out.println(stats());
+    }
+
+    private static void write(List<Entry> batch) {
+        if (batch.isEmpty()) return;
+        synchronized (WRITE_LOCK) { // the flusher and the shutdown drain must not interleave commits
+            try (Connection con = DBConnection.getConnection()) {
+                con.setAutoCommit(false);
+                boolean committed = false;
+                try (PreparedStatement pst = con.prepareStatement(INSERT_SQL)) {
+                    for (Entry e : batch) {
+                        pst.setString(1, e.description);
+                        pst.setTimestamp(2, e.at);
+                        pst.addBatch();
+                    }
+                    pst.executeBatch();
+                    con.commit();
+                    committed = true;
+                } finally {
+                    if (!committed) con.rollback();
+                }
+                written.addAndGet(batch.size());
+                commits.incrementAndGet();
+            } catch (SQLException ex) {
+                failed.addAndGet(batch.size());
+                System.err.println("Could not write " + batch.size() + " activity log entries: " + ex.getMessage());
+            }
+        }
+    }
+
+    private static class Entry {
+        final String description;
+        final Timestamp at; // time of the action, not of the flush
+
+        Entry(String description, Timestamp at) {
+            this.description = description;
+            this.at = at;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import javax.swing.*;
+import java.awt.*;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Activity log browser for admins, on a PagedTable: newest first by default, with keyset
+// pagination on (log_date, id) built by PagedTable.Page, so each page costs the same no matter how
+// deep the user scrolls and rows without a date are still reached. Date range and text filters
+// are applied in SQL.
+public class ActivityLogViewer extends JDialog {
+    private static final String CHANNEL = "logs";
+
+    private final DataLoader loader = new DataLoader();
+    private final PagedTable logTable = new PagedTable(loader, CHANNEL, "entries", "Date", "Description");
+
+    private JTextField fromField, toField, textField;
+
+    public ActivityLogViewer(Frame owner) {
+        super(owner, "Activity Logs", false);
+        setSize(860, 560);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        JPanel root = new JPanel(new BorderLayout(8, 8));
+        root.setBackground(Color.WHITE);
+        root.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        JPanel filters = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 4));
+        filters.setBackground(Color.WHITE);
+        filters.add(new JLabel("From (yyyy-mm-dd):"));
+        fromField = new JTextField(9);
+        filters.add(fromField);
+        filters.add(new JLabel("To:"));
+        toField = new JTextField(9);
+        filters.add(toField);
+        filters.add(new JLabel("Contains:"));
+        textField = new JTextField(16);
+        textField.addActionListener(e -> applyFilter());
+        filters.add(textField);
+        JButton apply = new JButton("Apply");
+        apply.setBackground(new Color(178, 34, 34));
+        apply.setForeground(Color.WHITE);
+        apply.setFocusPainted(false);
+        apply.addActionListener(e -> applyFilter());
+        filters.add(apply);
+        root.add(filters, BorderLayout.NORTH);
+
+        JTable table = logTable.getTable();
+        table.setRowHeight(22);
+        table.getColumnModel().getColumn(0).setPreferredWidth(170);
+        table.getColumnModel().getColumn(0).setMaxWidth(200);
+        table.getColumnModel().getColumn(1).setPreferredWidth(640);
+        logTable.enableSorting(new String[] { "log_date", null }, 0, false);
+        root.add(logTable, BorderLayout.CENTER);
+
+        setContentPane(root);
+        setLocationRelativeTo(owner);
+        setVisible(true);
+
+        applyFilter();
+    }
+
+    private void applyFilter() {
+        LocalDate from, to;
+        try {
+            from = parseDate(fromField.getText());
+            to = parseDate(toField.getText());
+        } catch (DateTimeParseException ex) {
+            JOptionPane.showMessageDialog(this, "Dates must look like 2025-01-31.");
+            return;
+        }
+        String t = textField.getText().trim();
+        String text = t.isEmpty() ? null : t;
+        logTable.setSource((con, page) -> fetchPage(con, from, to, text, page));
+    }
+
+    // the filters present, then page.bindAfter, then page.limit; also checked by QueryPlanCheck
+    static String pageSql(boolean from, boolean to, boolean text, PagedTable.Page page) {
+        StringBuilder q = new StringBuilder("SELECT id, log_date, description FROM activity_logs WHERE 1 = 1");
+        if (from) q.append(" AND log_date >= ?");
+        if (to) q.append(" AND log_date < ?");
+        if (text) q.append(" AND description LIKE ?");
+        return q.append(page.after("id")).append(page.orderBy("id")).append(" LIMIT ?").toString();
+    }
+
+    // runs on a background thread
+    private static List<Object[]> fetchPage(Connection con, LocalDate from, LocalDate to, String text,
+                                            PagedTable.Page page) throws SQLException {
+        List<Object[]> rows = new ArrayList<>(page.limit);
+        try (PreparedStatement pst = con.prepareStatement(pageSql(from != null, to != null, text != null, page))) {
+            int p = 1;
+            if (from != null) pst.setTimestamp(p++, Timestamp.valueOf(from.atStartOfDay()));
+            if (to != null) pst.setTimestamp(p++, Timestamp.valueOf(to.plusDays(1).atStartOfDay())); // inclusive end day
+            if (text != null) pst.setString(p++, "%" + DBConnection.escapeLike(text) + "%");
+            p = page.bindAfter(pst, p);
+            pst.setInt(p, page.limit);
+            try (ResultSet rs = pst.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new Object[] { rs.getInt("id"), rs.getTimestamp("log_date"), rs.getString("description") });
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static LocalDate parseDate(String s) {
+        s = s.trim();
+        return s.isEmpty() ? null : LocalDate.parse(s);
+    }
+
+    @Override
+    public void dispose() {
+        loader.close();
+        super.dispose();
+    }
+}
@@ -1,6 +1,5 @@
 import javax.swing.*;
 import java.awt.*;
-import java.sql.*;
 
 public class AdminDashboard extends JFrame {
     private JButton manageUsersButton, viewLogsButton;
@@ -42,40 +41,14 @@ public class AdminDashboard extends JFrame {
         setVisible(true);
     }
 
+    // search, paging, bulk add and bulk remove for donors, hospitals and seekers
     private void manageUsers() {
-        String role = JOptionPane.showInputDialog("Enter role to manage (donors/hospitals/seekers):");
-        String table = role;
-        String action = JOptionPane.showInputDialog("Action (view/add/remove):");
-        if (action.equals("view")) {
-            String query = "SELECT * FROM " + table;
-            try (Connection con = DBConnection.getConnection();
-                 Statement stmt = con.createStatement();
-                 ResultSet rs = stmt.executeQuery(query)) {
-                StringBuilder sb = new StringBuilder();
-                while (rs.next()) {
-                    sb.append("ID: ").append(rs.getInt("id")).append(", Name: ").append(rs.getString("name")).append("\n");
-                }
-                JOptionPane.showMessageDialog(this, sb.toString());
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-            }
-        } // Add more for add/remove
-        // Implement add/remove similarly using PreparedStatements
+        new UserBrowser(this);
     }
 
+    // paged, filterable viewer; rows are fetched as the admin scrolls
     private void viewLogs() {
-        String query = "SELECT * FROM activity_logs ORDER BY log_date DESC";
-        try (Connection con = DBConnection.getConnection();
-             Statement stmt = con.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            StringBuilder sb = new StringBuilder();
-            while (rs.next()) {
-                sb.append(rs.getTimestamp("log_date")).append(": ").append(rs.getString("description")).append("\n");
-            }
-            JOptionPane.showMessageDialog(this, sb.toString());
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-        }
+        new ActivityLogViewer(this);
     }
 
     // small helper to style nav buttons consistent with other dashboards
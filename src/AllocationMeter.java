@@ -0,0 +1,52 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Bytes allocated by the current thread, for measuring what a UI refresh costs. Off unless the JVM
+// runs with -Ddrop4life.measureAlloc=true, and a no-op on JVMs without per-thread allocation counters.
+// Measurements are totalled per name and printed at shutdown, never from the measured thread.
+public class AllocationMeter {
+    public static final boolean ENABLED = Boolean.getBoolean("drop4life.measureAlloc");
+
+    private static final java.lang.management.ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    // guarded by the class lock; name -> {count, total bytes, max bytes}
+    private static final Map<String, long[]> TOTALS = new TreeMap<>();
+
+    static {
+        if (ENABLED) DBConnection.addShutdownTask(() -> System.out.println(stats()));
+    }
+
+    // -1 when disabled or unsupported
+    public static long currentThreadAllocatedBytes() {
+        if (!ENABLED || !(THREADS instanceof com.sun.management.ThreadMXBean)) return -1;
+        com.sun.management.ThreadMXBean t = (com.sun.management.ThreadMXBean) THREADS;
+        if (!t.isThreadAllocatedMemorySupported()) return -1;
+        if (!t.isThreadAllocatedMemoryEnabled()) t.setThreadAllocatedMemoryEnabled(true);
+        return t.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // Adds what the current thread allocated since `before` (a currentThreadAllocatedBytes() value)
+    // to the totals for name; does nothing when before is -1.
+    public static void record(String name, long before) {
+        if (before < 0) return;
+        long bytes = currentThreadAllocatedBytes() - before;
+        synchronized (AllocationMeter.class) {
+            long[] t = TOTALS.computeIfAbsent(name, n -> new long[3]);
+            t[0]++;
+            t[1] += bytes;
+            t[2] = Math.max(t[2], bytes);
+        }
+    }
+
+    public static synchronized String stats() {
+        StringBuilder sb = new StringBuilder("allocations[");
+        for (Map.Entry<String, long[]> e : TOTALS.entrySet()) {
+            long[] t = e.getValue();
+            if (sb.charAt(sb.length() - 1) != '[') sb.append(' ');
+            sb.append(e.getKey()).append(": n=").append(t[0]).append(" avg=").append(t[1] / t[0] / 1024)
+                    .append("KiB max=").append(t[2] / 1024).append("KiB");
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,46 @@
+// ABO/Rh red-cell compatibility as bitmasks over the eight blood types. A donor can give to a
+// recipient when the donor's red cells carry no antigen (A, B, RhD) the recipient lacks, so O- gives
+// to everyone and AB+ receives from everyone. DONORS_FOR[r] has bit d set when type d can give to
+// type r; the table is computed once from the antigens rather than typed in by hand.
+public class BloodTypes {
+    public static final String[] ALL = {"A+", "A-", "B+", "B-", "O+", "O-", "AB+", "AB-"};
+
+    private static final int ANTIGEN_A = 1, ANTIGEN_B = 2, ANTIGEN_RH = 4;
+    private static final int[] ANTIGENS = new int[ALL.length];
+    private static final int[] DONORS_FOR = new int[ALL.length];
+
+    static {
+        for (int i = 0; i < ALL.length; i++) {
+            String t = ALL[i];
+            int a = 0;
+            if (t.startsWith("A")) a |= ANTIGEN_A;
+            if (t.startsWith("B") || t.startsWith("AB")) a |= ANTIGEN_B;
+            if (t.endsWith("+")) a |= ANTIGEN_RH;
+            ANTIGENS[i] = a;
+        }
+        for (int r = 0; r < ALL.length; r++) {
+            for (int d = 0; d < ALL.length; d++) {
+                if ((ANTIGENS[d] & ~ANTIGENS[r]) == 0) DONORS_FOR[r] |= 1 << d;
+            }
+        }
+    }
+
+    // position in ALL, or -1 for null/unknown spellings
+    public static int index(String type) {
+        if (type == null) return -1;
+        String t = type.trim().toUpperCase();
+        for (int i = 0; i < ALL.length; i++) if (ALL[i].equals(t)) return i;
+        return -1;
+    }
+
+    // bitmask over ALL of the types that can donate to recipient; 0 if recipient is unknown
+    public static int donorsFor(String recipient) {
+        int r = index(recipient);
+        return r < 0 ? 0 : DONORS_FOR[r];
+    }
+
+    public static boolean canDonate(String donor, String recipient) {
+        int d = index(donor);
+        return d >= 0 && (donorsFor(recipient) & (1 << d)) != 0;
+    }
+}
@@ -0,0 +1,126 @@
+import javax.swing.SwingUtilities;
+import java.sql.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Push-style change notification. Every write bumps a per-entity version row in change_versions
+// once it has committed; one watcher thread per JVM reads that tiny table every notify.pollMs and
+// tells subscribers (on the EDT) when the entity they display or index has changed, so they
+// re-query only when there is something new. The in-memory indexes subscribe from their static
+// initializers and never cancel, so once one is loaded the watcher polls for the rest of the run.
+public class ChangeNotifier {
+    // entity names are the tables whose contents the dashboards display
+    public static final String DONOR_REQUESTS = "donor_requests";
+    public static final String REQUESTS = "requests";
+    public static final String BLOOD_STOCKS = "blood_stocks";
+    public static final String DONATIONS = "donation_history";
+    public static final String DONORS = "donors";
+    public static final String HOSPITALS = "hospitals";
+    public static final String SEEKERS = "seekers";
+
+    private static final String BUMP_SQL =
+            "INSERT INTO change_versions (entity, version) VALUES (?, 1) ON DUPLICATE KEY UPDATE version = version + 1";
+
+    private static final Map<String, List<Runnable>> LISTENERS = new ConcurrentHashMap<>();
+    private static final Map<String, Long> SEEN = new HashMap<>(); // watcher thread only
+    private static final long POLL_MS = Long.parseLong(DBConnection.getSetting("notify.pollMs", "2000"));
+
+    private static ScheduledExecutorService watcher;
+    private static boolean baseline; // first poll only records versions
+
+    public interface Subscription {
+        void cancel();
+    }
+
+    // Runs listener on the EDT whenever entity changes. Starts the watcher on first use.
+    public static Subscription subscribe(String entity, Runnable listener) {
+        LISTENERS.computeIfAbsent(entity, k -> new CopyOnWriteArrayList<>()).add(listener);
+        startWatcher();
+        return () -> {
+            List<Runnable> list = LISTENERS.get(entity);
+            if (list != null) list.remove(listener);
+        };
+    }
+
+    // Records that entities changed. Call after the write has committed, never inside its
+    // transaction: the version row is one per entity, and holding its lock until the writer commits
+    // would queue every writer of that entity behind each other. The bump commits on its own. A
+    // failure is logged, not thrown, since the write it announces has already happened; a bump lost
+    // that way is made up by the next one.
+    public static void bump(Connection con, String... entities) {
+        try {
+            MigrationRunner.ensureMigrated(); // creates change_versions; a no-op once Main has migrated
+            boolean autoCommit = con.getAutoCommit();
+            boolean committed = autoCommit; // each statement commits on its own
+            try (PreparedStatement pst = con.prepareStatement(BUMP_SQL)) {
+                for (String entity : entities) {
+                    pst.setString(1, entity);
+                    pst.addBatch();
+                }
+                pst.executeBatch();
+                if (!autoCommit) con.commit();
+                committed = true;
+            } finally {
+                if (!committed) con.rollback();
+            }
+        } catch (SQLException ex) {
+            System.err.println("Change notification for " + String.join(", ", entities) + " failed: " + ex.getMessage());
+        }
+        // let this JVM's own screens see the change without waiting for the next tick
+        pollSoon();
+    }
+
+    // Polls now instead of at the next tick.
+    public static void pollSoon() {
+        ScheduledExecutorService w;
+        synchronized (ChangeNotifier.class) {
+            w = watcher;
+        }
+        if (w != null) w.execute(ChangeNotifier::poll);
+    }
+
+    private static synchronized void startWatcher() {
+        if (watcher != null) return;
+        watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "drop4life-change-watcher");
+            t.setDaemon(true);
+            return t;
+        });
+        watcher.scheduleWithFixedDelay(ChangeNotifier::poll, 0, POLL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static void poll() {
+        // only until the first subscriber; the indexes' subscriptions are never cancelled
+        if (LISTENERS.values().stream().allMatch(List::isEmpty)) return;
+        Map<String, Long> current = new HashMap<>();
+        try (Connection con = DBConnection.getConnection()) {
+            MigrationRunner.ensureMigrated();
+            try (Statement st = con.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT entity, version FROM change_versions")) {
+                while (rs.next()) current.put(rs.getString(1), rs.getLong(2));
+            }
+        } catch (SQLException ex) {
+            System.err.println("Change watcher: " + ex.getMessage());
+            return;
+        }
+        for (Map.Entry<String, Long> e : current.entrySet()) {
+            Long before = SEEN.put(e.getKey(), e.getValue());
+            if (baseline && !e.getValue().equals(before)) fire(e.getKey());
+        }
+        baseline = true;
+    }
+
+    private static void fire(String entity) {
+        List<Runnable> list = LISTENERS.get(entity);
+        if (list == null || list.isEmpty()) return;
+        SwingUtilities.invokeLater(() -> {
+            for (Runnable r : list) r.run();
+        });
+    }
+}
@@ -0,0 +1,385 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayDeque;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Bounded JDBC connection pool. Connections handed out are proxies whose close()
+// returns the physical connection to the pool instead of closing it.
+public class ConnectionPool {
+    private final String url;
+    private final Properties info;
+    private final int maxSize;
+    private final int minIdle;
+    private final long connectionTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long maxLifetimeMs;
+    private final long validateAfterIdleMs;
+    private final int validationTimeoutSec;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>(); // most recently used first
+    private int total; // idle + borrowed + being created
+    private boolean closed;
+
+    private final ScheduledExecutorService housekeeper;
+
+    // statistics
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong creates = new AtomicLong();
+    private final AtomicLong destroys = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong usageNanos = new AtomicLong();
+
+    public ConnectionPool(String url, Properties info, Properties poolConfig) {
+        this.url = url;
+        this.info = info;
+        this.maxSize = Math.max(1, intProp(poolConfig, "pool.maxSize", 10));
+        this.minIdle = Math.min(maxSize, Math.max(0, intProp(poolConfig, "pool.minIdle", 2)));
+        this.connectionTimeoutMs = longProp(poolConfig, "pool.connectionTimeoutMs", 10_000);
+        this.idleTimeoutMs = longProp(poolConfig, "pool.idleTimeoutMs", 300_000);
+        this.maxLifetimeMs = longProp(poolConfig, "pool.maxLifetimeMs", 1_800_000);
+        this.validateAfterIdleMs = longProp(poolConfig, "pool.validateAfterIdleMs", 500);
+        this.validationTimeoutSec = intProp(poolConfig, "pool.validationTimeoutSec", 2);
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "drop4life-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1_000, Math.min(idleTimeoutMs, 30_000));
+        // first run happens right away and pre-warms the pool up to minIdle
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(connectionTimeoutMs);
+        boolean waited = false;
+        while (true) {
+            PooledConnection pc = null;
+            boolean create = false;
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) throw new SQLException("Connection pool is closed");
+                    pc = idle.pollFirst();
+                    if (pc != null) break;
+                    if (total < maxSize) {
+                        total++;
+                        create = true;
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeouts.incrementAndGet();
+                        throw new SQLException("Timed out after " + connectionTimeoutMs
+                                + " ms waiting for a database connection (pool size " + maxSize + ")");
+                    }
+                    waited = true;
+                    try {
+                        available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                try {
+                    pc = newPhysical();
+                } catch (SQLException ex) {
+                    release();
+                    throw ex;
+                }
+            } else if (!isUsable(pc)) {
+                destroy(pc);
+                continue;
+            }
+
+            long waitedNanos = System.nanoTime() - start;
+            if (waited) {
+                waits.incrementAndGet();
+                waitNanos.addAndGet(waitedNanos);
+                maxWaitNanos.accumulateAndGet(waitedNanos, Math::max);
+            }
+            borrows.incrementAndGet();
+            pc.borrowedAt = System.nanoTime();
+            return pc.newHandle();
+        }
+    }
+
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+        PooledConnection pc;
+        while ((pc = pollIdle()) != null) destroy(pc);
+    }
+
+    public Stats getStats() {
+        lock.lock();
+        try {
+            Stats s = new Stats();
+            s.total = total;
+            s.idle = idle.size();
+            s.active = total - idle.size();
+            s.maxSize = maxSize;
+            s.borrows = borrows.get();
+            s.creates = creates.get();
+            s.destroys = destroys.get();
+            s.validationFailures = validationFailures.get();
+            s.waits = waits.get();
+            s.timeouts = timeouts.get();
+            s.avgWaitMs = s.waits == 0 ? 0 : waitNanos.get() / 1e6 / s.waits;
+            s.maxWaitMs = maxWaitNanos.get() / 1e6;
+            s.avgUsageMs = s.borrows == 0 ? 0 : usageNanos.get() / 1e6 / s.borrows;
+            return s;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---- internals ----
+
+    private PooledConnection newPhysical() throws SQLException {
+        Connection raw = DriverManager.getConnection(url, info);
+        creates.incrementAndGet();
+        return new PooledConnection(raw);
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        long now = System.nanoTime();
+        if (now - pc.createdAt > TimeUnit.MILLISECONDS.toNanos(maxLifetimeMs)) return false;
+        // only ping connections that sat idle for a while; hot connections are trusted
+        if (now - pc.lastReturnedAt < TimeUnit.MILLISECONDS.toNanos(validateAfterIdleMs)) return true;
+        try {
+            if (pc.raw.isValid(validationTimeoutSec)) return true;
+        } catch (SQLException ignored) {}
+        validationFailures.incrementAndGet();
+        return false;
+    }
+
+    private void giveBack(PooledConnection pc) {
+        usageNanos.addAndGet(System.nanoTime() - pc.borrowedAt);
+        boolean healthy;
+        try {
+            healthy = !pc.raw.isClosed();
+            if (healthy && !pc.raw.getAutoCommit()) {
+                pc.raw.rollback();
+                pc.raw.setAutoCommit(true);
+            }
+            if (healthy && pc.raw.isReadOnly()) pc.raw.setReadOnly(false);
+        } catch (SQLException ex) {
+            healthy = false;
+        }
+        if (!healthy || System.nanoTime() - pc.createdAt > TimeUnit.MILLISECONDS.toNanos(maxLifetimeMs)) {
+            destroy(pc);
+            return;
+        }
+        pc.lastReturnedAt = System.nanoTime();
+        lock.lock();
+        try {
+            if (closed) {
+                total--;
+            } else {
+                idle.addFirst(pc);
+                available.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        closeQuietly(pc.raw);
+        destroys.incrementAndGet();
+    }
+
+    private void destroy(PooledConnection pc) {
+        closeQuietly(pc.raw);
+        destroys.incrementAndGet();
+        release();
+    }
+
+    // frees one slot of capacity
+    private void release() {
+        lock.lock();
+        try {
+            total--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private PooledConnection pollIdle() {
+        lock.lock();
+        try {
+            return idle.pollFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void housekeep() {
+        long now = System.nanoTime();
+        long idleLimit = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMs);
+        long lifeLimit = TimeUnit.MILLISECONDS.toNanos(maxLifetimeMs);
+
+        // evict from the cold end of the deque (least recently used)
+        while (true) {
+            PooledConnection victim = null;
+            lock.lock();
+            try {
+                PooledConnection last = idle.peekLast();
+                if (last != null) {
+                    boolean expired = now - last.createdAt > lifeLimit;
+                    boolean stale = now - last.lastReturnedAt > idleLimit && idle.size() > minIdle;
+                    if (expired || stale) victim = idle.pollLast();
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (victim == null) break;
+            destroy(victim);
+        }
+
+        // top up to minIdle
+        while (true) {
+            lock.lock();
+            try {
+                if (closed || idle.size() >= minIdle || total >= maxSize) return;
+                total++;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                PooledConnection pc = newPhysical();
+                pc.lastReturnedAt = System.nanoTime();
+                lock.lock();
+                try {
+                    idle.addLast(pc);
+                    available.signal();
+                } finally {
+                    lock.unlock();
+                }
+            } catch (SQLException ex) {
+                release();
+                System.err.println("Connection pool warm-up failed: " + ex.getMessage());
+                return;
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection c) {
+        try {
+            c.close();
+        } catch (SQLException ignored) {}
+    }
+
+    private static int intProp(Properties p, String key, int def) {
+        return (int) longProp(p, key, def);
+    }
+
+    private static long longProp(Properties p, String key, long def) {
+        String v = p.getProperty(key);
+        if (v == null || v.trim().isEmpty()) return def;
+        try {
+            return Long.parseLong(v.trim());
+        } catch (NumberFormatException ex) {
+            System.err.println("Ignoring invalid value for " + key + ": " + v);
+            return def;
+        }
+    }
+
+    private final class PooledConnection {
+        final Connection raw;
+        final long createdAt = System.nanoTime();
+        volatile long lastReturnedAt = createdAt;
+        volatile long borrowedAt;
+
+        PooledConnection(Connection raw) {
+            this.raw = raw;
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    new Handle(this));
+        }
+    }
+
+    // one handle per borrow, so a stale reference can't touch a connection that was lent out again
+    private final class Handle implements InvocationHandler {
+        private final AtomicReference<PooledConnection> ref;
+
+        Handle(PooledConnection pc) {
+            this.ref = new AtomicReference<>(pc);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    PooledConnection returned = ref.getAndSet(null);
+                    if (returned != null) giveBack(returned);
+                    return null;
+                case "isClosed":
+                    PooledConnection cur = ref.get();
+                    return cur == null || cur.raw.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + ref.get() + "]";
+                default:
+                    break;
+            }
+            PooledConnection pc = ref.get();
+            if (pc == null) throw new SQLException("Connection has been returned to the pool");
+            try {
+                return method.invoke(pc.raw, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    public static class Stats {
+        public int total, idle, active, maxSize;
+        public long borrows, creates, destroys, validationFailures, waits, timeouts;
+        public double avgWaitMs, maxWaitMs, avgUsageMs;
+
+        @Override
+        public String toString() {
+            return String.format("pool[active=%d idle=%d total=%d/%d borrows=%d creates=%d destroys=%d "
+                            + "invalid=%d waits=%d timeouts=%d avgWait=%.2fms maxWait=%.2fms avgUse=%.2fms]",
+                    active, idle, total, maxSize, borrows, creates, destroys,
+                    validationFailures, waits, timeouts, avgWaitMs, maxWaitMs, avgUsageMs);
+        }
+    }
+}
@@ -1,16 +1,101 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.*;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class DBConnection {
-    private static final String URL = "jdbc:mysql://localhost:3306/drop4life?useSSL=false&serverTimezone=UTC";
-    private static final String USER = "root"; // your MySQL username
-    private static final String PASS = "bd@mysql"; // your MySQL password
+    // defaults, used when no db.properties is found or a key is missing
+    private static final String DEFAULT_URL = "jdbc:mysql://localhost:3306/drop4life?useSSL=false&serverTimezone=UTC&useServerPrepStmts=true&cachePrepStmts=true&prepStmtCacheSize=100&prepStmtCacheSqlLimit=2048&rewriteBatchedStatements=true";
+    private static final String DEFAULT_USER = "root";
+    private static final String DEFAULT_PASS = "bd@mysql";
 
-    public static Connection getConnection() throws SQLException {
+    // external config file: -Ddrop4life.config=<path>, else ./db.properties, else db.properties on the classpath
+    private static final String CONFIG_PROPERTY = "drop4life.config";
+    private static final String CONFIG_FILE = "db.properties";
+
+    private static final Properties CONFIG;
+    private static final ConnectionPool POOL;
+    private static final List<Runnable> SHUTDOWN_TASKS = new CopyOnWriteArrayList<>();
+
+    static {
         try {
             Class.forName("com.mysql.cj.jdbc.Driver"); // same as 8.x
         } catch (ClassNotFoundException e) {
             e.printStackTrace();
         }
-        return DriverManager.getConnection(URL, USER, PASS);
+        Properties cfg = loadConfig();
+        CONFIG = cfg;
+        Properties info = new Properties();
+        info.setProperty("user", cfg.getProperty("db.user", DEFAULT_USER));
+        info.setProperty("password", cfg.getProperty("db.password", DEFAULT_PASS));
+        POOL = new ConnectionPool(cfg.getProperty("db.url", DEFAULT_URL), info, cfg);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            // pending writers flush first, while the pool is still open
+            for (Runnable task : SHUTDOWN_TASKS) {
+                try {
+                    task.run();
+                } catch (RuntimeException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            if (Boolean.getBoolean("drop4life.poolStats")) System.out.println(POOL.getStats());
+            POOL.close();
+        }, "drop4life-pool-shutdown"));
+    }
+
+    // Borrows a pooled connection; close() hands it back to the pool.
+    public static Connection getConnection() throws SQLException {
+        return POOL.getConnection();
+    }
+
+    // Forces class initialisation so the pool starts warming up before the first screen needs it.
+    public static void warmUp() {
+        // static initializer does the work
+    }
+
+    // Runs task at JVM exit, before the pool closes. Used by background writers to flush.
+    public static void addShutdownTask(Runnable task) {
+        SHUTDOWN_TASKS.add(task);
+    }
+
+    // Reads another setting from the same config file, e.g. tuning knobs of other subsystems.
+    public static String getSetting(String key, String def) {
+        String v = CONFIG.getProperty(key);
+        return (v == null || v.trim().isEmpty()) ? def : v.trim();
+    }
+
+    // Escapes LIKE wildcards in user input; MySQL's default escape character is the backslash.
+    public static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    public static ConnectionPool.Stats getPoolStats() {
+        return POOL.getStats();
+    }
+
+    private static Properties loadConfig() {
+        Properties p = new Properties();
+        String explicit = System.getProperty(CONFIG_PROPERTY);
+        Path path = Paths.get(explicit != null ? explicit : CONFIG_FILE);
+        try {
+            if (Files.isRegularFile(path)) {
+                try (InputStream in = new FileInputStream(path.toFile())) {
+                    p.load(in);
+                }
+            } else {
+                try (InputStream in = DBConnection.class.getResourceAsStream("/" + CONFIG_FILE)) {
+                    if (in != null) p.load(in);
+                }
+            }
+        } catch (IOException ex) {
+            System.err.println("Could not read " + path + ", using default database settings: " + ex.getMessage());
+        }
+        return p;
     }
 }
@@ -0,0 +1,141 @@
+import javax.swing.SwingUtilities;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Runs JDBC work on a background pool and publishes results back on the Event Dispatch Thread.
+// Each screen owns one loader. Loads are keyed by channel: a new load on a channel cancels the
+// previous one, and only the latest load of a channel ever reaches its callback.
+public class DataLoader {
+    public interface Query<T> {
+        T run(Connection con) throws SQLException;
+    }
+
+    private static final AtomicInteger THREAD_NO = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(4, r -> {
+        Thread t = new Thread(r, "drop4life-db-" + THREAD_NO.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Map<String, Task<?>> current = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    // Latest-wins read for a channel (usually a card name). Errors are printed and dropped.
+    public <T> void load(String channel, Query<T> query, Consumer<T> onResult) {
+        load(channel, query, onResult, Throwable::printStackTrace);
+    }
+
+    public <T> void load(String channel, Query<T> query, Consumer<T> onResult, Consumer<SQLException> onError) {
+        if (closed) return;
+        Task<T> task = new Task<>(channel, query, onResult, onError);
+        Task<?> previous = current.put(channel, task);
+        if (previous != null) previous.cancel();
+        task.future = EXECUTOR.submit(task);
+    }
+
+    // One-off work such as a write. Not cancelled by card switches, only its callbacks are
+    // dropped once the owning screen has been closed.
+    public <T> void execute(Query<T> query, Consumer<T> onResult, Consumer<SQLException> onError) {
+        if (closed) return;
+        Task<T> task = new Task<>(null, query, onResult, onError);
+        task.future = EXECUTOR.submit(task);
+    }
+
+    public void cancel(String channel) {
+        Task<?> task = current.remove(channel);
+        if (task != null) task.cancel();
+    }
+
+    public void cancelAll() {
+        for (String channel : current.keySet()) cancel(channel);
+    }
+
+    // Call from the owning frame's dispose().
+    public void close() {
+        closed = true;
+        cancelAll();
+    }
+
+    private final class Task<T> implements Runnable {
+        private final String channel;
+        private final Query<T> query;
+        private final Consumer<T> onResult;
+        private final Consumer<SQLException> onError;
+        private final List<Statement> statements = new CopyOnWriteArrayList<>();
+        private volatile boolean cancelled;
+        private volatile Future<?> future;
+
+        Task(String channel, Query<T> query, Consumer<T> onResult, Consumer<SQLException> onError) {
+            this.channel = channel;
+            this.query = query;
+            this.onResult = onResult;
+            this.onError = onError;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) return;
+            T result = null;
+            SQLException error = null;
+            try (Connection con = DBConnection.getConnection()) {
+                result = query.run(tracking(con));
+            } catch (SQLException ex) {
+                error = ex;
+            } catch (RuntimeException ex) {
+                error = new SQLException(ex);
+            } finally {
+                statements.clear();
+            }
+            if (cancelled) return; // includes errors caused by Statement.cancel()
+            final T r = result;
+            final SQLException e = error;
+            SwingUtilities.invokeLater(() -> {
+                if (closed || cancelled) return;
+                if (channel != null && !current.remove(channel, this)) return; // superseded
+                if (e != null) onError.accept(e);
+                else onResult.accept(r);
+            });
+        }
+
+        void cancel() {
+            cancelled = true;
+            Future<?> f = future;
+            if (f != null) f.cancel(false);
+            for (Statement st : statements) {
+                try {
+                    st.cancel();
+                } catch (SQLException ignored) {}
+            }
+        }
+
+        // remembers every statement the query creates so cancel() can abort it mid-flight
+        private Connection tracking(Connection con) {
+            return (Connection) Proxy.newProxyInstance(
+                    DataLoader.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    (proxy, method, args) -> {
+                        Object out;
+                        try {
+                            out = method.invoke(con, args);
+                        } catch (InvocationTargetException ex) {
+                            throw ex.getCause();
+                        }
+                        if (out instanceof Statement) {
+                            statements.add((Statement) out);
+                            if (cancelled) ((Statement) out).cancel();
+                        }
+                        return out;
+                    });
+        }
+    }
+}
@@ -0,0 +1,85 @@
+import java.sql.*;
+import java.util.BitSet;
+
+// Keeps an in-memory donor index (EligibilityIndex, DonorMatcher, GeoIndex) current without
+// re-reading the donors table. donors.updated_at is maintained by MySQL on every insert and update;
+// after the first full read, each catch-up fetches only the rows whose updated_at is at or past the
+// newest one seen, reaching back sync.slackMs for transactions that committed late, as RequestSync
+// does. Deletes leave no row to read, so a catch-up ends by comparing the table's ids with the ids
+// read (IdChecksum, which also catches a delete hidden by a registration); a mismatch means the
+// caller rebuilds. Not thread-safe; each index calls it under its own refresh lock.
+public class DonorChanges {
+    private static final long SLACK_MS = Long.parseLong(DBConnection.getSetting("sync.slackMs", "5000"));
+
+    public interface Handler {
+        // one donors row: id first, then the columns asked for, in order
+        void row(ResultSet rs) throws SQLException;
+    }
+
+    private final String columns;
+    private BitSet ids = new BitSet(); // every donor read, whatever the index kept of it
+    private IdChecksum checksum = new IdChecksum(); // of ids
+    private Timestamp highWater;       // newest updated_at read, null before the first full read
+
+    public DonorChanges(String columns) {
+        this.columns = columns;
+    }
+
+    public boolean loaded() {
+        return highWater != null;
+    }
+
+    // Streams every donor to the handler. Relies on donors.updated_at; callers migrate first.
+    public void readAll(Connection con, Handler handler) throws SQLException {
+        BitSet seen = new BitSet();
+        IdChecksum seenChecksum = new IdChecksum();
+        Timestamp newest = new Timestamp(0);
+        try (Statement st = con.createStatement()) {
+            st.setFetchSize(Integer.MIN_VALUE); // stream, the donors table can be large
+            try (ResultSet rs = st.executeQuery("SELECT id, " + columns + ", updated_at FROM donors")) {
+                int updatedAt = rs.getMetaData().getColumnCount();
+                while (rs.next()) {
+                    handler.row(rs);
+                    if (!seen.get(rs.getInt(1))) {
+                        seen.set(rs.getInt(1));
+                        seenChecksum.add(rs.getInt(1));
+                    }
+                    Timestamp t = rs.getTimestamp(updatedAt);
+                    if (t != null && t.after(newest)) newest = t;
+                }
+            }
+        }
+        ids = seen;
+        checksum = seenChecksum;
+        highWater = newest;
+    }
+
+    // Passes the donors changed since the last read to the handler, oldest change first. Returns
+    // false when the table's ids no longer match the ones read (donors were deleted) and a readAll
+    // is needed.
+    public boolean readChanged(Connection con, Handler handler) throws SQLException {
+        Timestamp newest = highWater;
+        try (PreparedStatement pst = con.prepareStatement(changedSql())) {
+            pst.setTimestamp(1, new Timestamp(highWater.getTime() - SLACK_MS));
+            try (ResultSet rs = pst.executeQuery()) {
+                int updatedAt = rs.getMetaData().getColumnCount();
+                while (rs.next()) {
+                    handler.row(rs);
+                    if (!ids.get(rs.getInt(1))) {
+                        ids.set(rs.getInt(1));
+                        checksum.add(rs.getInt(1));
+                    }
+                    Timestamp t = rs.getTimestamp(updatedAt);
+                    if (t.after(newest)) newest = t;
+                }
+            }
+        }
+        highWater = newest;
+        return checksum.matches(con, "donors");
+    }
+
+    // uses idx_donors_updated
+    public String changedSql() {
+        return "SELECT id, " + columns + ", updated_at FROM donors WHERE updated_at >= ? ORDER BY updated_at";
+    }
+}
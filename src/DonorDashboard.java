@@ -3,11 +3,11 @@ import javax.swing.text.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.sql.*;
-import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 
 public class DonorDashboard extends JFrame {
     private int donorId;
+    private Session session;
+    private JLabel donorLabel; // header, shows the session name
 
     // nav
     private JButton profileButton, donationsButton, requestsButton, refreshButton;
@@ -19,8 +19,11 @@ public class DonorDashboard extends JFrame {
     // components
     private JTextArea profileArea;
     private JButton editProfileButton;
-    private JTextArea donationsArea;
+    private PagedTable donationsTable;
     private JPanel requestsListPanel; // new requests container panel
+    // cards on screen by request id, in display order; refreshes patch these instead of rebuilding
+    private final java.util.Map<Integer, RequestCard> requestCards = new java.util.HashMap<>();
+    private JLabel noRequestsLabel;
     private JButton logoutButton;
 
     // layout / fonts
@@ -31,11 +34,19 @@ public class DonorDashboard extends JFrame {
     // state
     private String currentCard = CARD_PROFILE;
 
-    // auto-refresh for requests view
-    private Timer requestsRefreshTimer;
+    // refresh the visible card when another client changes its data
+    private final java.util.List<ChangeNotifier.Subscription> subscriptions = new java.util.ArrayList<>();
+
+    // background JDBC, results are published back on the EDT
+    private final DataLoader loader = new DataLoader();
 
     public DonorDashboard(int donorId) {
-        this.donorId = donorId;
+        this(Session.ofId(Session.DONOR, donorId));
+    }
+
+    public DonorDashboard(Session session) {
+        this.session = session;
+        this.donorId = session.id;
         setTitle("DROP4LIFE — Donor Dashboard");
         setSize(980, 720);
         setResizable(true);
@@ -54,12 +65,19 @@ public class DonorDashboard extends JFrame {
         JLabel appLabel = new JLabel("  DROP4LIFE");
         appLabel.setForeground(Color.WHITE);
         appLabel.setFont(new Font("Segoe UI", Font.BOLD, 15));
-        JLabel donorLabel = new JLabel("Donor: " + getDonorName() + "  (ID: " + donorId + ")", SwingConstants.RIGHT);
+        donorLabel = new JLabel(headerText(), SwingConstants.RIGHT);
         donorLabel.setForeground(new Color(255, 230, 230));
         donorLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
         topInfo.add(appLabel, BorderLayout.WEST);
         topInfo.add(donorLabel, BorderLayout.EAST);
         topPanel.add(topInfo, BorderLayout.NORTH);
+        if (!session.hasProfile()) { // opened with only an id
+            loader.execute(con -> ReferenceData.profile(con, Session.DONOR, donorId), loaded -> {
+                if (loaded == null) return;
+                this.session = loaded;
+                donorLabel.setText(headerText());
+            }, Throwable::printStackTrace);
+        }
 
         JPanel navBar = new JPanel(new FlowLayout(FlowLayout.LEFT, 12, 8));
         navBar.setBackground(new Color(220, 20, 60));
@@ -143,12 +161,9 @@ public class DonorDashboard extends JFrame {
         dTitle.setBorder(BorderFactory.createEmptyBorder(6, 6, 6, 6));
         donationsCard.add(dTitle, BorderLayout.NORTH);
 
-        donationsArea = new JTextArea();
-        donationsArea.setEditable(false);
-        donationsArea.setFont(mono);
-        donationsArea.setBackground(Color.WHITE);
-        donationsArea.setBorder(BorderFactory.createLineBorder(new Color(230, 230, 230)));
-        donationsCard.add(new JScrollPane(donationsArea), BorderLayout.CENTER);
+        donationsTable = new PagedTable(loader, CARD_DONATIONS, "donations", "ID", "Hospital", "Date", "Details");
+        donationsTable.enableSorting(new String[] { "dh.id", "h.name", "dh.donation_date", null }, 2, false);
+        donationsCard.add(donationsTable, BorderLayout.CENTER);
 
         cards.add(donationsCard, CARD_DONATIONS);
 
@@ -174,16 +189,16 @@ public class DonorDashboard extends JFrame {
         setLocationRelativeTo(null);
         setVisible(true);
 
-        // Auto-refresh requests every 10 seconds
-        requestsRefreshTimer = new Timer(10_000, e -> {
+        // Re-fetch only when the underlying tables actually change
+        subscriptions.add(ChangeNotifier.subscribe(ChangeNotifier.DONOR_REQUESTS, () -> {
             if (CARD_REQUESTS.equals(currentCard)) loadRequests();
-        });
-        requestsRefreshTimer.setInitialDelay(0);
-        requestsRefreshTimer.start();
+        }));
+        subscriptions.add(ChangeNotifier.subscribe(ChangeNotifier.DONATIONS, () -> {
+            if (CARD_DONATIONS.equals(currentCard)) loadDonations();
+        }));
 
         // Initial load
         showCard(CARD_PROFILE);
-        loadProfile();
     }
 
     private JButton createNavButton(String text) {
@@ -207,6 +222,7 @@ public class DonorDashboard extends JFrame {
     private void showCard(String card) {
         CardLayout cl = (CardLayout) cards.getLayout();
         cl.show(cards, card);
+        if (!card.equals(currentCard)) loader.cancelAll(); // drop loads for the card being left
         currentCard = card;
         if (CARD_PROFILE.equals(card)) loadProfile();
         if (CARD_DONATIONS.equals(card)) loadDonations();
@@ -214,476 +230,422 @@ public class DonorDashboard extends JFrame {
     }
 
     private void loadProfile() {
-        SwingUtilities.invokeLater(() -> {
-            String q = "SELECT name, age, blood_type, contact_info, location FROM donors WHERE id = ?";
-            try (Connection con = DBConnection.getConnection();
-                 PreparedStatement pst = con.prepareStatement(q)) {
+        loader.load(CARD_PROFILE, con -> {
+            MigrationRunner.ensureMigrated();
+            String q = "SELECT name, age, blood_type, contact_info, location, next_eligible_date FROM donors WHERE id = ?";
+            try (PreparedStatement pst = con.prepareStatement(q)) {
                 pst.setInt(1, donorId);
-                ResultSet rs = pst.executeQuery();
-                if (rs.next()) {
+                try (ResultSet rs = pst.executeQuery()) {
+                    if (!rs.next()) return "Profile not found.";
                     StringBuilder sb = new StringBuilder();
                     sb.append("Name: ").append(rs.getString("name")).append("\n");
                     sb.append("Age: ").append(rs.getInt("age")).append("\n");
                     sb.append("Blood Type: ").append(rs.getString("blood_type")).append("\n");
                     sb.append("Contact: ").append(rs.getString("contact_info")).append("\n");
                     sb.append("Location: ").append(rs.getString("location")).append("\n");
-                    profileArea.setText(sb.toString());
-                } else {
-                    profileArea.setText("Profile not found.");
+                    Date next = rs.getDate("next_eligible_date");
+                    sb.append("Eligibility: ").append(EligibilityIndex.describe(rs.getInt("age"),
+                            next == null ? null : next.toLocalDate())).append("\n");
+                    return sb.toString();
                 }
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                profileArea.setText("Error loading profile: " + ex.getMessage());
             }
+        }, text -> profileArea.setText(text), ex -> {
+            ex.printStackTrace();
+            profileArea.setText("Error loading profile: " + ex.getMessage());
         });
     }
 
+    // a page at a time in the table's sort order, so a long history opens as fast as a short one
     private void loadDonations() {
-        SwingUtilities.invokeLater(() -> {
-            String q = "SELECT dh.id, h.name AS hospital_name, dh.details, dh.donation_date " +
-                       "FROM donation_history dh LEFT JOIN hospitals h ON dh.hospital_id = h.id " +
-                       "WHERE dh.donor_id = ? ORDER BY dh.donation_date DESC";
-            StringBuilder sb = new StringBuilder();
-            try (Connection con = DBConnection.getConnection();
-                 PreparedStatement pst = con.prepareStatement(q)) {
+        donationsTable.setSource((con, page) -> {
+            java.util.List<Object[]> rows = new java.util.ArrayList<>();
+            try (PreparedStatement pst = con.prepareStatement(donationsSql(page))) {
                 pst.setInt(1, donorId);
-                ResultSet rs = pst.executeQuery();
-                while (rs.next()) {
-                    sb.append("ID: ").append(rs.getInt("id"))
-                      .append(" | Hospital: ").append(rs.getString("hospital_name"))
-                      .append(" | Date: ").append(rs.getTimestamp("donation_date"))
-                      .append("\nDetails: ").append(rs.getString("details"))
-                      .append("\n\n");
+                pst.setInt(page.bindAfter(pst, 2), page.limit);
+                try (ResultSet rs = pst.executeQuery()) {
+                    while (rs.next()) {
+                        int id = rs.getInt("id");
+                        rows.add(new Object[] { id, id, rs.getString("hospital_name"),
+                                rs.getTimestamp("donation_date"), rs.getString("details") });
+                    }
                 }
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                sb.append("Error loading donations: ").append(ex.getMessage());
             }
-            if (sb.length() == 0) sb.append("No donations found.");
-            donationsArea.setText(sb.toString());
+            return rows;
         });
     }
 
+    // parameters: donor id, then page.bindAfter, then page.limit; also checked by QueryPlanCheck
+    static String donationsSql(PagedTable.Page page) {
+        return "SELECT dh.id, h.name AS hospital_name, dh.details, dh.donation_date " +
+               "FROM donation_history dh LEFT JOIN hospitals h ON dh.hospital_id = h.id " +
+               "WHERE dh.donor_id = ?" + page.after("dh.id") + page.orderBy("dh.id") + " LIMIT ?";
+    }
+
     private void loadRequests() {
-        SwingUtilities.invokeLater(() -> {
+        loader.load(CARD_REQUESTS, this::fetchRequests, this::showRequests, ex -> {
+            ex.printStackTrace();
             requestsListPanel.removeAll();
+            requestCards.clear();
+            noRequestsLabel = null;
+            JLabel err = new JLabel("Error loading requests: " + ex.getMessage());
+            err.setForeground(Color.RED);
+            requestsListPanel.add(err);
+            requestsListPanel.revalidate();
+            requestsListPanel.repaint();
+        });
+    }
 
-            try (Connection con = DBConnection.getConnection()) {
-                // discover columns available in donor_requests
-                java.util.Set<String> cols = new java.util.HashSet<>();
-                try (ResultSet rsCols = con.getMetaData().getColumns(null, null, "donor_requests", null)) {
-                    while (rsCols.next()) {
-                        cols.add(rsCols.getString("COLUMN_NAME").toLowerCase());
-                    }
-                }
+    // runs on a background thread
+    private java.util.List<RequestRow> fetchRequests(Connection con) throws SQLException {
+        String sql = DonorRequestQueries.PENDING_FOR_DONOR;
 
-                // pick a timestamp column if present
-                String tsCol = null;
-                for (String candidate : new String[] { "request_date", "created_at", "created", "timestamp", "createdon", "createdat" }) {
-                    if (cols.contains(candidate)) { tsCol = candidate; break; }
-                }
-                boolean hasStatus = cols.contains("status");
-
-                // build safe query (only reference columns that exist)
-                StringBuilder q = new StringBuilder();
-                q.append("SELECT dr.id, h.name AS hospital_name, dr.details");
-                if (tsCol != null) q.append(", dr.").append(tsCol).append(" AS request_date");
-                else q.append(", NULL AS request_date");
-                q.append(" FROM donor_requests dr LEFT JOIN hospitals h ON dr.hospital_id = h.id ");
-                q.append("WHERE dr.donor_id = ? ");
-                if (hasStatus) q.append("AND (dr.status IS NULL OR LOWER(dr.status) <> 'accepted') ");
-                if (tsCol != null) q.append("ORDER BY request_date DESC");
-                else q.append("ORDER BY dr.id DESC");
-
-                try (PreparedStatement pst = con.prepareStatement(q.toString())) {
-                    pst.setInt(1, donorId);
-                    try (ResultSet rs = pst.executeQuery()) {
-                        boolean any = false;
-                        while (rs.next()) {
-                            any = true;
-                            int reqId = rs.getInt("id");
-                            String hospital = rs.getString("hospital_name");
-                            String details = rs.getString("details");
-                            java.sql.Timestamp date = rs.getTimestamp("request_date"); // may be null when column missing
-
-                            JPanel card = new JPanel(new BorderLayout(6, 6));
-                            card.setBackground(Color.WHITE);
-                            card.setBorder(BorderFactory.createCompoundBorder(
-                                    BorderFactory.createLineBorder(new Color(230, 230, 230)),
-                                    BorderFactory.createEmptyBorder(8, 8, 8, 8)
-                            ));
-
-                            JLabel header = new JLabel("Request #" + reqId + " | " + hospital + " | " + (date != null ? date.toString() : ""));
-                            header.setFont(baseFont);
-
-                            JTextArea detailArea = new JTextArea(details != null ? details : "");
-                            detailArea.setEditable(false);
-                            detailArea.setBackground(Color.WHITE);
-                            detailArea.setFont(mono);
-                            detailArea.setWrapStyleWord(true);
-                            detailArea.setLineWrap(true);
-
-                            // build action buttons
-                            JButton acceptBtn = new JButton("Accept");
-                            stylePrimaryButton(acceptBtn);
-                            acceptBtn.setPreferredSize(new Dimension(120, 32));
-                            acceptBtn.addActionListener(e -> acceptRequest(reqId, hospital));
-
-                            JButton declineBtn = new JButton("Decline");
-                            declineBtn.setBackground(new Color(200, 200, 200));
-                            declineBtn.setForeground(Color.BLACK);
-                            declineBtn.setFocusPainted(false);
-                            declineBtn.setPreferredSize(new Dimension(120, 32));
-                            declineBtn.addActionListener(e -> declineRequest(reqId, hospital));
-
-                            JPanel bottom = new JPanel(new FlowLayout(FlowLayout.RIGHT));
-                            bottom.setBackground(Color.WHITE);
-                            bottom.add(declineBtn);
-                            bottom.add(Box.createHorizontalStrut(8));
-                            bottom.add(acceptBtn);
-
-                            card.add(header, BorderLayout.NORTH);
-                            card.add(new JScrollPane(detailArea), BorderLayout.CENTER);
-                            card.add(bottom, BorderLayout.SOUTH);
-
-                            requestsListPanel.add(card);
-                            requestsListPanel.add(Box.createVerticalStrut(10));
-                        }
-
-                        if (!any) {
-                            JLabel empty = new JLabel("No requests found.");
-                            empty.setFont(baseFont);
-                            empty.setForeground(Color.GRAY);
-                            empty.setAlignmentX(Component.CENTER_ALIGNMENT);
-                            requestsListPanel.add(empty);
-                        }
-                    }
+        java.util.List<RequestRow> rows = new java.util.ArrayList<>();
+        try (PreparedStatement pst = con.prepareStatement(sql)) {
+            pst.setInt(1, donorId);
+            try (ResultSet rs = pst.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new RequestRow(rs.getInt("id"), rs.getString("hospital_name"),
+                            rs.getString("details"), rs.getTimestamp("request_date")));
                 }
+            }
+        }
+        return rows;
+    }
 
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JLabel err = new JLabel("Error loading requests: " + ex.getMessage());
-                err.setForeground(Color.RED);
-                requestsListPanel.add(err);
+    // runs on the EDT. Diffs rows against the cards on screen by request id: new requests get a
+    // card, changed ones are patched in place, gone ones are removed, and nothing else is touched,
+    // so an unchanged refresh creates no components and keeps the scroll position.
+    private void showRequests(java.util.List<RequestRow> rows) {
+        long allocBefore = AllocationMeter.currentThreadAllocatedBytes();
+        int inserted = 0, updated = 0, removed = 0;
+        if (requestCards.isEmpty() && noRequestsLabel == null) requestsListPanel.removeAll(); // first load or after an error
+
+        java.util.Set<Integer> live = new java.util.HashSet<>();
+        for (RequestRow row : rows) live.add(row.id);
+        for (java.util.Iterator<RequestCard> it = requestCards.values().iterator(); it.hasNext(); ) {
+            RequestCard card = it.next();
+            if (!live.contains(card.row.id)) {
+                requestsListPanel.remove(card.slot);
+                it.remove();
+                removed++;
             }
+        }
+        if (noRequestsLabel != null && !rows.isEmpty()) {
+            requestsListPanel.remove(noRequestsLabel);
+            noRequestsLabel = null;
+            removed++;
+        }
+
+        for (int i = 0; i < rows.size(); i++) {
+            RequestRow row = rows.get(i);
+            RequestCard card = requestCards.get(row.id);
+            if (card == null) {
+                card = new RequestCard(row);
+                requestCards.put(row.id, card);
+                requestsListPanel.add(card.slot, i);
+                inserted++;
+                continue;
+            }
+            if (!card.row.sameAs(row)) {
+                card.update(row);
+                updated++;
+            }
+            if (requestsListPanel.getComponent(i) != card.slot) { // order changed
+                requestsListPanel.remove(card.slot);
+                requestsListPanel.add(card.slot, i);
+                updated++;
+            }
+        }
+
+        if (rows.isEmpty() && noRequestsLabel == null) {
+            noRequestsLabel = new JLabel("No requests found.");
+            noRequestsLabel.setFont(baseFont);
+            noRequestsLabel.setForeground(Color.GRAY);
+            noRequestsLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+            requestsListPanel.add(noRequestsLabel);
+            inserted++;
+        }
 
+        if (inserted + updated + removed > 0) {
             requestsListPanel.revalidate();
             requestsListPanel.repaint();
-        });
+        }
+        AllocationMeter.record("requests-refresh", allocBefore);
+    }
+
+    // the on-screen card of one request; its buttons read the current row, so patching is enough
+    private class RequestCard {
+        final JPanel slot; // card plus the gap below it, added to and removed from the list as one
+        final JLabel header;
+        final JTextArea detailArea;
+        RequestRow row;
+
+        RequestCard(RequestRow row) {
+            this.row = row;
+            JPanel card = new JPanel(new BorderLayout(6, 6));
+            card.setBackground(Color.WHITE);
+            card.setBorder(BorderFactory.createCompoundBorder(
+                    BorderFactory.createLineBorder(new Color(230, 230, 230)),
+                    BorderFactory.createEmptyBorder(8, 8, 8, 8)
+            ));
+
+            header = new JLabel();
+            header.setFont(baseFont);
+
+            detailArea = new JTextArea();
+            detailArea.setEditable(false);
+            detailArea.setBackground(Color.WHITE);
+            detailArea.setFont(mono);
+            detailArea.setWrapStyleWord(true);
+            detailArea.setLineWrap(true);
+
+            // build action buttons
+            JButton acceptBtn = new JButton("Accept");
+            stylePrimaryButton(acceptBtn);
+            acceptBtn.setPreferredSize(new Dimension(120, 32));
+            acceptBtn.addActionListener(e -> acceptRequest(this.row.id, this.row.hospital));
+
+            JButton declineBtn = new JButton("Decline");
+            declineBtn.setBackground(new Color(200, 200, 200));
+            declineBtn.setForeground(Color.BLACK);
+            declineBtn.setFocusPainted(false);
+            declineBtn.setPreferredSize(new Dimension(120, 32));
+            declineBtn.addActionListener(e -> declineRequest(this.row.id, this.row.hospital));
+
+            JPanel bottom = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+            bottom.setBackground(Color.WHITE);
+            bottom.add(declineBtn);
+            bottom.add(Box.createHorizontalStrut(8));
+            bottom.add(acceptBtn);
+
+            card.add(header, BorderLayout.NORTH);
+            card.add(new JScrollPane(detailArea), BorderLayout.CENTER);
+            card.add(bottom, BorderLayout.SOUTH);
+
+            slot = new JPanel(new BorderLayout());
+            slot.setBackground(Color.WHITE);
+            slot.setBorder(BorderFactory.createEmptyBorder(0, 0, 10, 0));
+            slot.add(card, BorderLayout.CENTER);
+            fill();
+        }
+
+        void update(RequestRow newRow) {
+            row = newRow;
+            fill();
+        }
+
+        private void fill() {
+            header.setText("Request #" + row.id + " | " + row.hospital + " | " + (row.date != null ? row.date.toString() : ""));
+            String details = row.details != null ? row.details : "";
+            if (!details.equals(detailArea.getText())) detailArea.setText(details);
+        }
     }
 
     private void acceptRequest(int requestId, String hospitalName) {
-        // provide a clear reason for ineligibility (underage vs recent donation)
-        String reason = getIneligibilityReason();
-        if (reason != null) {
-            switch (reason) {
-                case "underage":
+        // eligibility, donation, stock and status change run as one transaction
+        loader.execute(con -> new AcceptDonation(donorId, requestId).execute(con), outcome -> {
+            // provide a clear reason for ineligibility (underage vs recent donation)
+            switch (outcome) {
+                case ACCEPTED:
+                    JOptionPane.showMessageDialog(this, "Request accepted and donation recorded.");
+                    loadRequests();
+                    loadDonations();
+                    break;
+                case UNDERAGE:
                     JOptionPane.showMessageDialog(this,
                             "Not eligible to donate: donor must be at least 18 years old.",
                             "Not eligible", JOptionPane.INFORMATION_MESSAGE);
-                    return;
-                case "recent_donation":
+                    break;
+                case RECENT_DONATION:
                     JOptionPane.showMessageDialog(this,
                             "Not eligible to donate yet. Please wait at least 3 months since your last donation.",
                             "Not eligible", JOptionPane.INFORMATION_MESSAGE);
-                    return;
+                    break;
+                case ALREADY_HANDLED:
+                    JOptionPane.showMessageDialog(this, "This request from " + hospitalName + " was already accepted.");
+                    loadRequests();
+                    break;
                 default:
-                    JOptionPane.showMessageDialog(this, "Not eligible to donate.", "Not eligible", JOptionPane.INFORMATION_MESSAGE);
-                    return;
+                    JOptionPane.showMessageDialog(this, "Request not found: it may have been withdrawn.");
+                    loadRequests();
+                    break;
             }
-        }
-
-        int hospitalId = getHospitalId(hospitalName);
-        if (hospitalId == -1) {
-            JOptionPane.showMessageDialog(this, "Hospital not found: " + hospitalName);
-            return;
-        }
-
-        performDonate(hospitalName);
-
-        try (Connection con = DBConnection.getConnection();
-             PreparedStatement pst = con.prepareStatement("UPDATE donor_requests SET status = 'accepted' WHERE id = ?")) {
-            pst.setInt(1, requestId);
-            pst.executeUpdate();
-        } catch (SQLException ex) {
+        }, ex -> {
             ex.printStackTrace();
-        }
-
-        JOptionPane.showMessageDialog(this, "Request accepted and donation recorded.");
-        loadRequests();
-        loadDonations();
-    }
-
-    // returns null when eligible, otherwise a reason code: "underage", "recent_donation", "db_error", etc.
-    private String getIneligibilityReason() {
-        final int MIN_AGE = 18;
-        try (Connection con = DBConnection.getConnection()) {
-            // check age
-            String qAge = "SELECT age FROM donors WHERE id = ?";
-            try (PreparedStatement pst = con.prepareStatement(qAge)) {
-                pst.setInt(1, donorId);
-                try (ResultSet rs = pst.executeQuery()) {
-                    if (rs.next()) {
-                        int age = rs.getInt("age");
-                        if (age < MIN_AGE) return "underage";
-                    } else {
-                        return "db_error";
-                    }
-                }
-            }
-
-            // check last donation date
-            String qLast = "SELECT MAX(donation_date) AS last_donation FROM donation_history WHERE donor_id = ?";
-            try (PreparedStatement pst2 = con.prepareStatement(qLast)) {
-                pst2.setInt(1, donorId);
-                try (ResultSet rs2 = pst2.executeQuery()) {
-                    if (rs2.next()) {
-                        java.sql.Timestamp ts = rs2.getTimestamp("last_donation");
-                        if (ts == null) return null; // never donated => eligible by date
-                        java.time.LocalDate last = ts.toLocalDateTime().toLocalDate();
-                        long months = ChronoUnit.MONTHS.between(last, LocalDate.now());
-                        if (months < 3) return "recent_donation";
-                    }
-                }
-            }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            return "db_error";
-        }
-        return null;
+            JOptionPane.showMessageDialog(this, "Error recording donation: " + ex.getMessage());
+        });
     }
 
     private void declineRequest(int requestId, String hospitalName) {
-        try (Connection con = DBConnection.getConnection();
-             PreparedStatement pst = con.prepareStatement(
-                     "UPDATE donor_requests SET status = 'declined' WHERE id = ?")) {
-            pst.setInt(1, requestId);
-            int n = pst.executeUpdate();
+        loader.execute(con -> {
+            try (PreparedStatement pst = con.prepareStatement(
+                    "UPDATE donor_requests SET status = 'declined' WHERE id = ?")) {
+                pst.setInt(1, requestId);
+                int n = pst.executeUpdate();
+                ChangeNotifier.bump(con, ChangeNotifier.DONOR_REQUESTS);
+                return n;
+            }
+        }, n -> {
             if (n > 0) {
                 JOptionPane.showMessageDialog(this, "You declined the request from " + hospitalName + ".");
             } else {
                 JOptionPane.showMessageDialog(this, "Failed to decline request (no rows updated).");
             }
-        } catch (SQLException ex) {
+            loadRequests();
+        }, ex -> {
             ex.printStackTrace();
             JOptionPane.showMessageDialog(this, "Error declining request: " + ex.getMessage());
-        } finally {
             loadRequests();
-        }
+        });
     }
 
-    private void performDonate(String hospitalName) {
-        int hospitalId = getHospitalId(hospitalName);
-        if (hospitalId == -1) {
-            JOptionPane.showMessageDialog(this, "Hospital not found: " + hospitalName);
-            return;
-        }
-        try (Connection con = DBConnection.getConnection();
-             PreparedStatement pst = con.prepareStatement(
-                     "INSERT INTO donation_history (donor_id, hospital_id, details, donation_date) VALUES (?, ?, ?, NOW())")) {
-            pst.setInt(1, donorId);
-            pst.setInt(2, hospitalId);
-            pst.setString(3, "Donation to " + hospitalName);
-            pst.executeUpdate();
-
-            String bt = getDonorBloodType();
-            updateBloodStock(hospitalId, bt, 1);
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error recording donation: " + ex.getMessage());
-        }
+    private String headerText() {
+        return "Donor: " + (session.hasProfile() ? session.name : "...") + "  (ID: " + donorId + ")";
     }
 
-    private boolean isEligible() {
-        final int MIN_AGE = 18;
-        try (Connection con = DBConnection.getConnection()) {
-            String qAge = "SELECT age FROM donors WHERE id = ?";
-            try (PreparedStatement pst = con.prepareStatement(qAge)) {
+    // called by editProfileButton
+    private void showEditProfileDialog() {
+        loader.execute(con -> {
+            String q = "SELECT name, age, blood_type, contact_info, location FROM donors WHERE id = ?";
+            try (PreparedStatement pst = con.prepareStatement(q)) {
                 pst.setInt(1, donorId);
                 try (ResultSet rs = pst.executeQuery()) {
-                    if (rs.next()) {
-                        int age = rs.getInt("age");
-                        if (age < MIN_AGE) return false;
-                    } else return false;
+                    if (!rs.next()) return null;
+                    return new String[] { rs.getString("name"), String.valueOf(rs.getInt("age")),
+                            rs.getString("blood_type"), rs.getString("contact_info"), rs.getString("location") };
                 }
             }
-
-            String qLast = "SELECT MAX(donation_date) AS last_donation FROM donation_history WHERE donor_id = ?";
-            try (PreparedStatement pst2 = con.prepareStatement(qLast)) {
-                pst2.setInt(1, donorId);
-                try (ResultSet rs2 = pst2.executeQuery()) {
-                    if (rs2.next()) {
-                        Timestamp ts = rs2.getTimestamp("last_donation");
-                        if (ts == null) return true;
-                        LocalDate last = ts.toLocalDateTime().toLocalDate();
-                        long months = ChronoUnit.MONTHS.between(last, LocalDate.now());
-                        return months >= 3;
-                    }
-                }
+        }, profile -> {
+            if (profile == null) {
+                JOptionPane.showMessageDialog(this, "Profile not found.");
+                return;
             }
-        } catch (SQLException ex) {
+            openEditProfileDialog(profile[0], profile[1], profile[2], profile[3], profile[4]);
+        }, ex -> {
             ex.printStackTrace();
-        }
-        return false;
+            JOptionPane.showMessageDialog(this, "Error loading profile: " + ex.getMessage());
+        });
     }
 
-    private String getDonorBloodType() {
-        String query = "SELECT blood_type FROM donors WHERE id = ?";
-        try (Connection con = DBConnection.getConnection();
-             PreparedStatement pst = con.prepareStatement(query)) {
-            pst.setInt(1, donorId);
-            ResultSet rs = pst.executeQuery();
-            if (rs.next()) {
-                String bt = rs.getString("blood_type");
-                if (bt != null && !bt.trim().isEmpty()) return bt.trim();
+    private void openEditProfileDialog(String name, String age, String bt, String contact, String location) {
+        JDialog dlg = new JDialog(this, "Edit Profile", true);
+        JPanel p = new JPanel(new GridBagLayout());
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(6,6,6,6);
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+
+        gbc.gridx = 0; gbc.gridy = 0; p.add(new JLabel("Name:"), gbc);
+        gbc.gridx = 1; JTextField nameF = new JTextField(name, 20); p.add(nameF, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 1; p.add(new JLabel("Age:"), gbc);
+        gbc.gridx = 1; JTextField ageF = new JTextField(age, 6); p.add(ageF, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 2; p.add(new JLabel("Blood Type:"), gbc);
+        gbc.gridx = 1; JTextField btF = new JTextField(bt != null ? bt : "", 8); p.add(btF, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 3; p.add(new JLabel("Contact:"), gbc);
+        gbc.gridx = 1; JTextField contactF = new JTextField(contact != null ? contact : "", 20); p.add(contactF, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 4; p.add(new JLabel("Location:"), gbc);
+        gbc.gridx = 1; JTextField locF = new JTextField(location != null ? location : "", 20); p.add(locF, gbc);
+
+        JPanel btns = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton save = new JButton("Save");
+        JButton cancel = new JButton("Cancel");
+        btns.add(cancel); btns.add(save);
+        gbc.gridx = 0; gbc.gridy = 5; gbc.gridwidth = 2; p.add(btns, gbc);
+
+        cancel.addActionListener(a -> dlg.dispose());
+        save.addActionListener(a -> {
+            String newName = nameF.getText().trim();
+            String ageTxt = ageF.getText().trim();
+            String newBt = btF.getText().trim();
+            String newContact = contactF.getText().trim();
+            String newLoc = locF.getText().trim();
+            if (newName.isEmpty()) {
+                JOptionPane.showMessageDialog(dlg, "Name required.");
+                return;
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-        }
-        return "A+";
-    }
-
-    private void updateBloodStock(int hospitalId, String bloodType, int units) {
-        String updateQuery = "UPDATE blood_stocks SET units = units + ? WHERE hospital_id = ? AND blood_type = ?";
-        try (Connection con = DBConnection.getConnection();
-             PreparedStatement pst = con.prepareStatement(updateQuery)) {
-            pst.setInt(1, units);
-            pst.setInt(2, hospitalId);
-            pst.setString(3, bloodType);
-            int updated = pst.executeUpdate();
-            if (updated == 0) {
-                String insertQuery = "INSERT INTO blood_stocks (hospital_id, blood_type, units) VALUES (?, ?, ?)";
-                try (PreparedStatement insertPst = con.prepareStatement(insertQuery)) {
-                    insertPst.setInt(1, hospitalId);
-                    insertPst.setString(2, bloodType);
-                    insertPst.setInt(3, units);
-                    insertPst.executeUpdate();
+            int newAge;
+            try { newAge = Integer.parseInt(ageTxt); }
+            catch (NumberFormatException ex) { JOptionPane.showMessageDialog(dlg, "Invalid age."); return; }
+
+            save.setEnabled(false);
+            loader.execute(con -> updateProfileInDB(con, newName, newAge, newBt, newContact, newLoc), ok -> {
+                if (ok) {
+                    dlg.dispose();
+                    NameBloomFilter.added(ChangeNotifier.DONORS, newName);
+                    session = new Session(Session.DONOR, donorId, newName, newBt.isEmpty() ? null : newBt, newLoc);
+                    ReferenceData.remember(session);
+                    donorLabel.setText(headerText());
+                    loadProfile();
+                    JOptionPane.showMessageDialog(this, "Profile updated.");
+                } else {
+                    save.setEnabled(true);
+                    JOptionPane.showMessageDialog(dlg, "Update failed. See console.");
                 }
-            }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error updating stock: " + ex.getMessage());
-        }
+            }, ex -> {
+                ex.printStackTrace();
+                save.setEnabled(true);
+                JOptionPane.showMessageDialog(dlg, "Update failed. See console.");
+            });
+        });
+
+        dlg.setContentPane(p);
+        dlg.pack();
+        dlg.setLocationRelativeTo(this);
+        dlg.setVisible(true);
     }
 
-    private int getHospitalId(String name) {
-        if (name == null || name.trim().isEmpty()) return -1;
-        String query = "SELECT id FROM hospitals WHERE name = ?";
-        try (Connection con = DBConnection.getConnection();
-             PreparedStatement pst = con.prepareStatement(query)) {
-            pst.setString(1, name.trim());
-            ResultSet rs = pst.executeQuery();
-            if (rs.next()) return rs.getInt("id");
-        } catch (SQLException ex) {
-            ex.printStackTrace();
+    private boolean updateProfileInDB(Connection con, String name, int age, String bloodType, String contact, String location) throws SQLException {
+        // coordinates follow the location, so proximity search never uses the old place
+        String q = "UPDATE donors SET name = ?, age = ?, blood_type = ?, contact_info = ?, location = ?, " +
+                   "latitude = ?, longitude = ? WHERE id = ?";
+        double[] point = Gazetteer.resolve(location);
+        try (PreparedStatement pst = con.prepareStatement(q)) {
+            pst.setString(1, name);
+            pst.setInt(2, age);
+            pst.setString(3, (bloodType == null || bloodType.isEmpty()) ? null : bloodType);
+            pst.setString(4, contact);
+            pst.setString(5, location);
+            if (point != null) {
+                pst.setDouble(6, point[0]);
+                pst.setDouble(7, point[1]);
+            } else {
+                pst.setNull(6, Types.DOUBLE);
+                pst.setNull(7, Types.DOUBLE);
+            }
+            pst.setInt(8, donorId);
+            boolean updated = pst.executeUpdate() > 0;
+            if (updated) ChangeNotifier.bump(con, ChangeNotifier.DONORS);
+            return updated;
         }
-        return -1;
     }
 
-    private String getDonorName() {
-        String q = "SELECT name FROM donors WHERE id = ?";
-        try (Connection con = DBConnection.getConnection();
-             PreparedStatement pst = con.prepareStatement(q)) {
-            pst.setInt(1, donorId);
-            ResultSet rs = pst.executeQuery();
-            if (rs.next()) return rs.getString("name");
-        } catch (SQLException ignored) {}
-        return "Unknown";
+    @Override
+    public void dispose() {
+        for (ChangeNotifier.Subscription sub : subscriptions) sub.cancel();
+        loader.close();
+        super.dispose();
     }
 
-    // called by editProfileButton
-    private void showEditProfileDialog() {
-        String q = "SELECT name, age, blood_type, contact_info, location FROM donors WHERE id = ?";
-        try (Connection con = DBConnection.getConnection();
-             PreparedStatement pst = con.prepareStatement(q)) {
-            pst.setInt(1, donorId);
-            try (ResultSet rs = pst.executeQuery()) {
-                if (!rs.next()) {
-                    JOptionPane.showMessageDialog(this, "Profile not found.");
-                    return;
-                }
-                String name = rs.getString("name");
-                String age = String.valueOf(rs.getInt("age"));
-                String bt = rs.getString("blood_type");
-                String contact = rs.getString("contact_info");
-                String location = rs.getString("location");
-
-                JDialog dlg = new JDialog(this, "Edit Profile", true);
-                JPanel p = new JPanel(new GridBagLayout());
-                GridBagConstraints gbc = new GridBagConstraints();
-                gbc.insets = new Insets(6,6,6,6);
-                gbc.fill = GridBagConstraints.HORIZONTAL;
-
-                gbc.gridx = 0; gbc.gridy = 0; p.add(new JLabel("Name:"), gbc);
-                gbc.gridx = 1; JTextField nameF = new JTextField(name, 20); p.add(nameF, gbc);
-
-                gbc.gridx = 0; gbc.gridy = 1; p.add(new JLabel("Age:"), gbc);
-                gbc.gridx = 1; JTextField ageF = new JTextField(age, 6); p.add(ageF, gbc);
-
-                gbc.gridx = 0; gbc.gridy = 2; p.add(new JLabel("Blood Type:"), gbc);
-                gbc.gridx = 1; JTextField btF = new JTextField(bt != null ? bt : "", 8); p.add(btF, gbc);
-
-                gbc.gridx = 0; gbc.gridy = 3; p.add(new JLabel("Contact:"), gbc);
-                gbc.gridx = 1; JTextField contactF = new JTextField(contact != null ? contact : "", 20); p.add(contactF, gbc);
-
-                gbc.gridx = 0; gbc.gridy = 4; p.add(new JLabel("Location:"), gbc);
-                gbc.gridx = 1; JTextField locF = new JTextField(location != null ? location : "", 20); p.add(locF, gbc);
-
-                JPanel btns = new JPanel(new FlowLayout(FlowLayout.RIGHT));
-                JButton save = new JButton("Save");
-                JButton cancel = new JButton("Cancel");
-                btns.add(cancel); btns.add(save);
-                gbc.gridx = 0; gbc.gridy = 5; gbc.gridwidth = 2; p.add(btns, gbc);
-
-                cancel.addActionListener(a -> dlg.dispose());
-                save.addActionListener(a -> {
-                    String newName = nameF.getText().trim();
-                    String ageTxt = ageF.getText().trim();
-                    String newBt = btF.getText().trim();
-                    String newContact = contactF.getText().trim();
-                    String newLoc = locF.getText().trim();
-                    if (newName.isEmpty()) {
-                        JOptionPane.showMessageDialog(dlg, "Name required.");
-                        return;
-                    }
-                    int newAge;
-                    try { newAge = Integer.parseInt(ageTxt); }
-                    catch (NumberFormatException ex) { JOptionPane.showMessageDialog(dlg, "Invalid age."); return; }
-
-                    if (updateProfileInDB(newName, newAge, newBt, newContact, newLoc)) {
-                        dlg.dispose();
-                        loadProfile();
-                        JOptionPane.showMessageDialog(this, "Profile updated.");
-                    } else {
-                        JOptionPane.showMessageDialog(dlg, "Update failed. See console.");
-                    }
-                });
-
-                dlg.setContentPane(p);
-                dlg.pack();
-                dlg.setLocationRelativeTo(this);
-                dlg.setVisible(true);
-            }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error loading profile: " + ex.getMessage());
+    // one row of the requests card, fetched off the EDT
+    private static class RequestRow {
+        final int id;
+        final String hospital;
+        final String details;
+        final Timestamp date;
+
+        RequestRow(int id, String hospital, String details, Timestamp date) {
+            this.id = id;
+            this.hospital = hospital;
+            this.details = details;
+            this.date = date;
         }
-    }
 
-    private boolean updateProfileInDB(String name, int age, String bloodType, String contact, String location) {
-        String q = "UPDATE donors SET name = ?, age = ?, blood_type = ?, contact_info = ?, location = ? WHERE id = ?";
-        try (Connection con = DBConnection.getConnection();
-             PreparedStatement pst = con.prepareStatement(q)) {
-            pst.setString(1, name);
-            pst.setInt(2, age);
-            pst.setString(3, (bloodType == null || bloodType.isEmpty()) ? null : bloodType);
-            pst.setString(4, contact);
-            pst.setString(5, location);
-            pst.setInt(6, donorId);
-            return pst.executeUpdate() > 0;
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            return false;
+        boolean sameAs(RequestRow o) {
+            return id == o.id && java.util.Objects.equals(hospital, o.hospital)
+                    && java.util.Objects.equals(details, o.details) && java.util.Objects.equals(date, o.date);
         }
     }
 
@@ -0,0 +1,167 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// Finds donors for a recipient blood type without scanning the donors table. Donors are held in
+// memory as one bitset of ids per blood type and per location; a query ORs the bitsets of the
+// compatible types (BloodTypes), ANDs the eligible-now bitset from EligibilityIndex and, if asked,
+// the location bitset, then ranks only the survivors and keeps the best k. The index is loaded on
+// first use; after donors change it reads only the changed rows (DonorChanges), outside the class
+// lock, and rebuilds only when donors were deleted.
+public class DonorMatcher {
+    public static class Match {
+        public final int id;
+        public final String name, bloodType, location;
+        public final boolean exactType, sameLocation;
+
+        Match(int id, String name, String bloodType, String location, boolean exactType, boolean sameLocation) {
+            this.id = id;
+            this.name = name;
+            this.bloodType = bloodType;
+            this.location = location;
+            this.exactType = exactType;
+            this.sameLocation = sameLocation;
+        }
+
+        // same location beats exact type (travel matters most); exact type keeps O- for those who need it
+        int score() {
+            return (sameLocation ? 2 : 0) + (exactType ? 1 : 0);
+        }
+    }
+
+    public static class Result {
+        public final List<Match> matches;
+        public final int candidates; // compatible, eligible (and local, if filtered) donors before top-k
+        public final long micros;
+
+        Result(List<Match> matches, int candidates, long micros) {
+            this.matches = matches;
+            this.candidates = candidates;
+            this.micros = micros;
+        }
+    }
+
+    // One complete index; a rebuild makes a new one and swaps it in.
+    private static class Donors {
+        final BitSet[] byType = new BitSet[BloodTypes.ALL.length];
+        final Map<String, BitSet> byLocation = new HashMap<>();
+        final Map<Integer, String[]> details = new HashMap<>(); // id -> {name, blood type, location}
+
+        Donors() {
+            for (int t = 0; t < byType.length; t++) byType[t] = new BitSet();
+        }
+
+        // replaces whatever is held for the donor with its current row
+        void put(int id, String name, String type, String location) {
+            String[] old = details.remove(id);
+            if (old != null) {
+                byType[BloodTypes.index(old[1])].clear(id);
+                if (old[2] != null) byLocation.get(normalize(old[2])).clear(id);
+            }
+            int t = BloodTypes.index(type);
+            if (t < 0) return; // unknown type: cannot be matched safely
+            byType[t].set(id);
+            if (location != null) byLocation.computeIfAbsent(normalize(location), l -> new BitSet()).set(id);
+            details.put(id, new String[] { name, BloodTypes.ALL[t], location });
+        }
+    }
+
+    // guarded by the class lock
+    private static Donors donors = new Donors();
+
+    private static final DonorChanges CHANGES = new DonorChanges("name, blood_type, location");
+    private static final Object REFRESH = new Object(); // one refresh at a time, guards CHANGES
+    private static volatile boolean changed;
+
+    static {
+        ChangeNotifier.subscribe(ChangeNotifier.DONORS, () -> changed = true);
+    }
+
+    // Best k eligible donors for recipientType, optionally only those in location.
+    public static Result topK(String recipientType, String location, boolean sameLocationOnly, int k)
+            throws SQLException {
+        ensureCurrent();
+        BitSet eligible = EligibilityIndex.eligibleNow();
+        synchronized (DonorMatcher.class) {
+            return rank(donors, eligible, recipientType, location, sameLocationOnly, k);
+        }
+    }
+
+    // runs under the class lock
+    private static Result rank(Donors index, BitSet eligible, String recipientType, String location,
+                               boolean sameLocationOnly, int k) {
+        long start = System.nanoTime();
+        BitSet[] byType = index.byType;
+
+        int recipient = BloodTypes.index(recipientType);
+        int mask = BloodTypes.donorsFor(recipientType);
+        BitSet candidates = new BitSet();
+        for (int t = 0; t < byType.length; t++) {
+            if ((mask & (1 << t)) != 0) candidates.or(byType[t]);
+        }
+        candidates.and(eligible);
+        BitSet local = location == null ? null : index.byLocation.get(normalize(location));
+        if (sameLocationOnly) {
+            if (local == null) candidates.clear();
+            else candidates.and(local);
+        }
+
+        // min-heap of the best k so far; the root is the weakest match kept
+        PriorityQueue<Match> best = new PriorityQueue<>(Math.max(1, k), DonorMatcher::compare);
+        for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+            String[] d = index.details.get(id);
+            Match m = new Match(id, d[0], d[1], d[2], BloodTypes.index(d[1]) == recipient, local != null && local.get(id));
+            if (best.size() < k) best.add(m);
+            else if (compare(m, best.peek()) > 0) {
+                best.poll();
+                best.add(m);
+            }
+        }
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(Collections.reverseOrder(DonorMatcher::compare));
+        return new Result(ranked, candidates.cardinality(), (System.nanoTime() - start) / 1000);
+    }
+
+    // higher is better: score, then name
+    private static int compare(Match a, Match b) {
+        if (a.score() != b.score()) return Integer.compare(a.score(), b.score());
+        String an = a.name == null ? "" : a.name, bn = b.name == null ? "" : b.name;
+        int byName = bn.compareToIgnoreCase(an); // alphabetically earlier ranks higher
+        return byName != 0 ? byName : Integer.compare(b.id, a.id);
+    }
+
+    private static void ensureCurrent() throws SQLException {
+        synchronized (REFRESH) {
+            if (CHANGES.loaded() && !changed) return;
+            MigrationRunner.ensureMigrated(); // adds donors.updated_at on older databases
+            changed = false; // changes landing during the read mark it changed again
+            try (Connection con = DBConnection.getConnection()) {
+                if (CHANGES.loaded()) {
+                    List<Object[]> rows = new ArrayList<>();
+                    boolean complete = CHANGES.readChanged(con, rs -> rows.add(new Object[] {
+                            rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4) }));
+                    synchronized (DonorMatcher.class) {
+                        for (Object[] r : rows) donors.put((Integer) r[0], (String) r[1], (String) r[2], (String) r[3]);
+                    }
+                    if (complete) return;
+                }
+                // built without the lock, so queries keep answering from the old index meanwhile
+                Donors fresh = new Donors();
+                CHANGES.readAll(con, rs -> fresh.put(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4)));
+                synchronized (DonorMatcher.class) {
+                    donors = fresh;
+                }
+            }
+        }
+    }
+
+    private static String normalize(String location) {
+        return location.trim().toLowerCase(Locale.ROOT);
+    }
+}
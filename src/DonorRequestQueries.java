@@ -0,0 +1,11 @@
+// SQL for donor_requests. Every database has request_date and status since MigrationRunner
+// version 4, so the query no longer depends on which columns an older schema happened to have.
+public class DonorRequestQueries {
+    // open (not yet accepted) requests for one donor, newest first; parameter 1 is donor_id.
+    // Served by idx_donor_requests_donor (donor_id, status, request_date).
+    public static final String PENDING_FOR_DONOR =
+            "SELECT dr.id, h.name AS hospital_name, dr.details, dr.request_date " +
+            "FROM donor_requests dr LEFT JOIN hospitals h ON dr.hospital_id = h.id " +
+            "WHERE dr.donor_id = ? AND (dr.status IS NULL OR LOWER(dr.status) <> 'accepted') " +
+            "ORDER BY dr.request_date DESC, dr.id DESC";
+}
@@ -0,0 +1,168 @@
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Donor eligibility without scanning donation_history. Each donor row carries next_eligible_date,
+// set when a donation is recorded (NULL = never donated), so the transactional check in
+// AcceptDonation reads it from the row it already locks. On top of that an in-memory index answers
+// "is this donor eligible?" in O(1) and "who is eligible now?" as a bitset over donor ids: one bit
+// set for adults, one for donors still waiting, and a calendar of the days waiting donors become
+// eligible again. The index is loaded on first use; after a donor change or a donation anywhere it
+// reads only the donors changed since (DonorChanges), and rebuilds only when donors were deleted.
+// Reads and rebuilds happen outside the class lock, so lookups keep answering meanwhile.
+public class EligibilityIndex {
+    static final String COLUMN = "next_eligible_date";
+
+    // guarded by the class lock
+    private static BitSet adults = new BitSet();
+    private static BitSet waiting = new BitSet();
+    private static Map<Integer, Long> nextDay = new HashMap<>(); // epoch day, waiting donors only
+    private static TreeMap<Long, List<Integer>> releases = new TreeMap<>();
+    private static boolean loaded;
+
+    private static final DonorChanges CHANGES = new DonorChanges("age, " + COLUMN);
+    private static final Object REFRESH = new Object(); // one refresh at a time, guards CHANGES
+    private static volatile boolean changed;
+
+    static {
+        ChangeNotifier.subscribe(ChangeNotifier.DONORS, () -> changed = true);
+        ChangeNotifier.subscribe(ChangeNotifier.DONATIONS, () -> changed = true);
+    }
+
+    // The date a donor may donate again after donating on `donated`.
+    public static LocalDate nextEligible(LocalDate donated) {
+        return donated.plusMonths(AcceptDonation.MONTHS_BETWEEN_DONATIONS);
+    }
+
+    // Stores the donor's next eligible date inside the caller's transaction.
+    static void recordDonation(Connection con, int donorId, LocalDate next) throws SQLException {
+        try (PreparedStatement pst = con.prepareStatement("UPDATE donors SET " + COLUMN + " = ? WHERE id = ?")) {
+            pst.setDate(1, Date.valueOf(next));
+            pst.setInt(2, donorId);
+            pst.executeUpdate();
+        }
+    }
+
+    // Applies a committed donation to the in-memory index.
+    static synchronized void donated(int donorId, LocalDate next) {
+        if (!loaded) return;
+        markWaiting(donorId, next.toEpochDay());
+    }
+
+    public static boolean isEligible(int donorId) throws SQLException {
+        ensureCurrent();
+        synchronized (EligibilityIndex.class) {
+            release();
+            return adults.get(donorId) && !waiting.get(donorId);
+        }
+    }
+
+    // null if the donor is not waiting out a recent donation
+    public static LocalDate nextEligibleDate(int donorId) throws SQLException {
+        ensureCurrent();
+        synchronized (EligibilityIndex.class) {
+            release();
+            Long day = nextDay.get(donorId);
+            return day == null ? null : LocalDate.ofEpochDay(day);
+        }
+    }
+
+    // Ids of all donors who may donate today. The caller owns the returned copy.
+    public static BitSet eligibleNow() throws SQLException {
+        ensureCurrent();
+        synchronized (EligibilityIndex.class) {
+            release();
+            BitSet eligible = (BitSet) adults.clone();
+            eligible.andNot(waiting);
+            return eligible;
+        }
+    }
+
+    // Shared wording for the screens that show a donor's eligibility.
+    public static String describe(int age, LocalDate next) {
+        if (age < AcceptDonation.MIN_AGE) return "Not eligible (under " + AcceptDonation.MIN_AGE + ")";
+        if (next != null && LocalDate.now().isBefore(next)) return "Eligible from " + next;
+        return "Eligible now";
+    }
+
+    private static void ensureCurrent() throws SQLException {
+        synchronized (REFRESH) {
+            if (CHANGES.loaded() && !changed) return;
+            MigrationRunner.ensureMigrated(); // adds the columns on older databases
+            changed = false; // changes landing during the read mark it changed again
+            try (Connection con = DBConnection.getConnection()) {
+                if (CHANGES.loaded()) {
+                    List<Object[]> rows = new ArrayList<>();
+                    boolean complete = CHANGES.readChanged(con,
+                            rs -> rows.add(new Object[] { rs.getInt(1), rs.getInt(2), rs.getDate(3) }));
+                    long today = LocalDate.now().toEpochDay();
+                    synchronized (EligibilityIndex.class) {
+                        for (Object[] r : rows) apply((Integer) r[0], (Integer) r[1], (Date) r[2], today);
+                    }
+                    if (complete) return;
+                }
+                rebuild(con);
+            }
+        }
+    }
+
+    // built without the lock, so lookups keep answering from the old index meanwhile
+    private static void rebuild(Connection con) throws SQLException {
+        BitSet freshAdults = new BitSet();
+        Map<Integer, Long> freshNextDay = new HashMap<>();
+        long today = LocalDate.now().toEpochDay();
+        CHANGES.readAll(con, rs -> {
+            if (rs.getInt(2) >= AcceptDonation.MIN_AGE) freshAdults.set(rs.getInt(1));
+            Date next = rs.getDate(3);
+            long day = next == null ? Long.MIN_VALUE : next.toLocalDate().toEpochDay();
+            if (day > today) freshNextDay.put(rs.getInt(1), day);
+        });
+        synchronized (EligibilityIndex.class) {
+            adults = freshAdults;
+            waiting = new BitSet();
+            nextDay = new HashMap<>();
+            releases = new TreeMap<>();
+            for (Map.Entry<Integer, Long> e : freshNextDay.entrySet()) markWaiting(e.getKey(), e.getValue());
+            loaded = true;
+        }
+    }
+
+    // replaces what the index holds for one donor with its current row
+    private static void apply(int donorId, int age, Date next, long today) {
+        adults.set(donorId, age >= AcceptDonation.MIN_AGE);
+        long day = next == null ? Long.MIN_VALUE : next.toLocalDate().toEpochDay();
+        if (day > today) {
+            Long known = nextDay.get(donorId);
+            if (known == null || known != day) markWaiting(donorId, day);
+        } else {
+            nextDay.remove(donorId);
+            waiting.clear(donorId);
+        }
+    }
+
+    private static void markWaiting(int donorId, long day) {
+        nextDay.put(donorId, day);
+        waiting.set(donorId);
+        releases.computeIfAbsent(day, d -> new ArrayList<>()).add(donorId);
+    }
+
+    // clears the waiting bit of donors whose date has come
+    private static void release() {
+        long today = LocalDate.now().toEpochDay();
+        while (!releases.isEmpty() && releases.firstKey() <= today) {
+            Map.Entry<Long, List<Integer>> due = releases.pollFirstEntry();
+            for (int id : due.getValue()) {
+                Long day = nextDay.get(id);
+                if (day != null && day.equals(due.getKey())) { // skip entries superseded by a later donation
+                    nextDay.remove(id);
+                    waiting.clear(id);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Offline place-name lookup: turns the free-text locations users type into coordinates, using the
+// bundled gazetteer.csv (name,latitude,longitude). Read from geo.gazetteer (a file path), else
+// from the classpath. A location resolves to the place it names; when it names several ("Karachi
+// Road, Lahore") the last one wins, since addresses end with the city. Nothing is looked up online.
+public class Gazetteer {
+    private static final String FILE = DBConnection.getSetting("geo.gazetteer", "gazetteer.csv");
+    private static final int MAX_WORDS = 4; // longest place name, in words
+
+    private static final Map<String, double[]> PLACES = load();
+
+    // {latitude, longitude} of the place the location names, or null if it names none we know
+    public static double[] resolve(String location) {
+        if (location == null) return null;
+        String[] words = normalize(location).split(" ");
+        for (int end = words.length; end > 0; end--) {
+            // longest name ending at this word first, so "Mirpur Khas" is not read as "Mirpur"
+            for (int start = Math.max(0, end - MAX_WORDS); start < end; start++) {
+                double[] p = PLACES.get(String.join(" ", Arrays.copyOfRange(words, start, end)));
+                if (p != null) return p;
+            }
+        }
+        return null;
+    }
+
+    public static int size() {
+        return PLACES.size();
+    }
+
+    // case, accents and punctuation do not matter
+    private static String normalize(String s) {
+        return NameBloomFilter.normalize(s).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    private static Map<String, double[]> load() {
+        Map<String, double[]> places = new HashMap<>();
+        Path path = Paths.get(FILE);
+        try (InputStream in = Files.isRegularFile(path) ? Files.newInputStream(path)
+                : Gazetteer.class.getResourceAsStream("/" + path.getFileName())) {
+            if (in == null) {
+                System.err.println("No gazetteer at " + path + "; proximity search is unavailable");
+                return places;
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] f = line.split(",");
+                if (f.length != 3) continue;
+                try {
+                    places.put(normalize(f[0]), new double[] { Double.parseDouble(f[1].trim()), Double.parseDouble(f[2].trim()) });
+                } catch (NumberFormatException ex) {
+                    System.err.println("Bad gazetteer line: " + line);
+                }
+            }
+        } catch (IOException ex) {
+            System.err.println("Could not read gazetteer " + path + ": " + ex.getMessage());
+        }
+        return places;
+    }
+}
@@ -0,0 +1,180 @@
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// Uniform latitude/longitude grid of points keyed by id, for "within R km" and "k nearest"
+// queries that touch only the cells near the query point. Cells are geo.cellDeg degrees on a side.
+// Not thread-safe; GeoIndex guards it.
+public class GeoGrid {
+    public static class Hit {
+        public final int id;
+        public final double km;
+
+        Hit(int id, double km) {
+            this.id = id;
+            this.km = km;
+        }
+    }
+
+    // Narrows a batch of candidates (one ring of cells at a time), e.g. to hospitals holding stock.
+    public interface BatchFilter {
+        int[] accept(int[] ids) throws SQLException;
+    }
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180; // of latitude, same sphere as haversineKm
+
+    private static class IntList {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+    }
+
+    private final double cellDeg;
+    private final Map<Long, IntList> cells = new HashMap<>();
+    private final Map<Integer, double[]> points = new HashMap<>();
+    private int minRow = Integer.MAX_VALUE, maxRow = Integer.MIN_VALUE, minCol = Integer.MAX_VALUE, maxCol = Integer.MIN_VALUE;
+
+    public GeoGrid(double cellDeg) {
+        this.cellDeg = cellDeg;
+    }
+
+    public void add(int id, double lat, double lon) {
+        points.put(id, new double[] { lat, lon });
+        int row = row(lat), col = col(lon);
+        cells.computeIfAbsent(key(row, col), k -> new IntList()).add(id);
+        minRow = Math.min(minRow, row);
+        maxRow = Math.max(maxRow, row);
+        minCol = Math.min(minCol, col);
+        maxCol = Math.max(maxCol, col);
+    }
+
+    // Takes a point out, e.g. before re-adding it where its row now says it is. The bounds are left
+    // as they were; they only ever need to cover the points.
+    public void remove(int id) {
+        double[] p = points.remove(id);
+        if (p == null) return;
+        IntList cell = cells.get(key(row(p[0]), col(p[1])));
+        for (int i = 0; i < cell.size; i++) {
+            if (cell.ids[i] == id) {
+                cell.ids[i] = cell.ids[--cell.size];
+                break;
+            }
+        }
+    }
+
+    public double[] point(int id) {
+        return points.get(id);
+    }
+
+    public int size() {
+        return points.size();
+    }
+
+    // Points within radiusKm of (lat, lon), nearest first.
+    public List<Hit> within(double lat, double lon, double radiusKm) {
+        double dLat = radiusKm / KM_PER_DEGREE;
+        double dLon = radiusKm / (KM_PER_DEGREE * Math.max(0.01, Math.cos(Math.toRadians(Math.min(89, Math.abs(lat) + dLat)))));
+        List<Hit> hits = new ArrayList<>();
+        for (int row = Math.max(minRow, row(lat - dLat)); row <= Math.min(maxRow, row(lat + dLat)); row++) {
+            for (int col = Math.max(minCol, col(lon - dLon)); col <= Math.min(maxCol, col(lon + dLon)); col++) {
+                IntList cell = cells.get(key(row, col));
+                if (cell == null) continue;
+                for (int i = 0; i < cell.size; i++) {
+                    double km = distanceTo(cell.ids[i], lat, lon);
+                    if (km <= radiusKm) hits.add(new Hit(cell.ids[i], km));
+                }
+            }
+        }
+        hits.sort((a, b) -> Double.compare(a.km, b.km));
+        return hits;
+    }
+
+    // The k points nearest (lat, lon) that pass filter. Cells are visited in square rings around
+    // the query point; the search stops once the k-th best is closer than anything outside the
+    // rings visited so far, so the filter only ever sees the neighbourhood.
+    public List<Hit> nearest(double lat, double lon, int k, BatchFilter filter) throws SQLException {
+        PriorityQueue<Hit> best = new PriorityQueue<>((a, b) -> Double.compare(b.km, a.km)); // farthest on top
+        if (points.isEmpty() || k <= 0) return new ArrayList<>();
+        int centerRow = row(lat), centerCol = col(lon);
+        for (int r = 0; ; r++) {
+            int[] ring = ring(centerRow, centerCol, r);
+            if (ring.length > 0) {
+                for (int id : filter.accept(ring)) {
+                    Hit h = new Hit(id, distanceTo(id, lat, lon));
+                    if (best.size() < k) best.add(h);
+                    else if (h.km < best.peek().km) {
+                        best.poll();
+                        best.add(h);
+                    }
+                }
+            }
+            boolean coveredAll = centerRow - r <= minRow && centerRow + r >= maxRow
+                    && centerCol - r <= minCol && centerCol + r >= maxCol;
+            if (coveredAll || (best.size() == k && best.peek().km <= outsideBound(lat, lon, centerRow, centerCol, r))) break;
+        }
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort((a, b) -> Double.compare(a.km, b.km));
+        return hits;
+    }
+
+    // ids in the cells at Chebyshev distance exactly r from the centre cell
+    private int[] ring(int centerRow, int centerCol, int r) {
+        int[] out = new int[16];
+        int n = 0;
+        for (int row = centerRow - r; row <= centerRow + r; row++) {
+            if (row < minRow || row > maxRow) continue;
+            boolean edgeRow = row == centerRow - r || row == centerRow + r;
+            for (int col = centerCol - r; col <= centerCol + r; col += edgeRow || r == 0 ? 1 : 2 * r) {
+                IntList cell = cells.get(key(row, col));
+                if (cell == null) continue;
+                if (n + cell.size > out.length) out = Arrays.copyOf(out, Math.max(out.length * 2, n + cell.size));
+                System.arraycopy(cell.ids, 0, out, n, cell.size);
+                n += cell.size;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    // lower bound on the distance from (lat, lon) to any point outside the rings 0..r
+    private double outsideBound(double lat, double lon, int centerRow, int centerCol, int r) {
+        double south = (centerRow - r) * cellDeg, north = (centerRow + r + 1) * cellDeg;
+        double west = (centerCol - r) * cellDeg, east = (centerCol + r + 1) * cellDeg;
+        double widest = Math.cos(Math.toRadians(Math.min(89, Math.max(Math.abs(south), Math.abs(north)))));
+        double lonGap = Math.toRadians(Math.min(90, Math.min(lon - west, east - lon)));
+        return Math.min(Math.min(lat - south, north - lat) * KM_PER_DEGREE,
+                        EARTH_RADIUS_KM * Math.sin(lonGap) * widest); // sin: never above the great-circle distance
+    }
+
+    private double distanceTo(int id, double lat, double lon) {
+        double[] p = points.get(id);
+        return haversineKm(lat, lon, p[0], p[1]);
+    }
+
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1), dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private int row(double lat) {
+        return (int) Math.floor(lat / cellDeg);
+    }
+
+    private int col(double lon) {
+        return (int) Math.floor(lon / cellDeg);
+    }
+
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+}
@@ -0,0 +1,236 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Proximity search over hospitals and donors. Both tables carry latitude/longitude, resolved from
+// their free-text location with the offline Gazetteer; rows still without coordinates are resolved
+// and written back when the index loads, so new registrations need no extra step. Each table is held
+// in a GeoGrid, loaded on first use. Hospitals are reloaded after they change; donors, the large
+// table, catch up with only the rows changed since (DonorChanges) and are rebuilt only when donors
+// were deleted. Both are read under their own refresh lock, never the class lock, so searches keep
+// answering from the current grids meanwhile. Rows whose location names no known place have no
+// coordinates and are left out of proximity results.
+public class GeoIndex {
+    private static final double CELL_DEG = Double.parseDouble(DBConnection.getSetting("geo.cellDeg", "0.25"));
+
+    public static class HospitalHit {
+        public final int id;
+        public final String name, location;
+        public final int total, exact; // compatible units, and units of the recipient's own type
+        public final double km;
+
+        HospitalHit(int id, String name, String location, int total, int exact, double km) {
+            this.id = id;
+            this.name = name;
+            this.location = location;
+            this.total = total;
+            this.exact = exact;
+            this.km = km;
+        }
+    }
+
+    public static class DonorHit {
+        public final int id;
+        public final String name, bloodType, location;
+        public final double km;
+
+        DonorHit(int id, String name, String bloodType, String location, double km) {
+            this.id = id;
+            this.name = name;
+            this.bloodType = bloodType;
+            this.location = location;
+            this.km = km;
+        }
+    }
+
+    // guarded by the class lock; a hospitals grid is never changed once swapped in
+    private static GeoGrid hospitals, donors;
+    private static Map<Integer, String[]> hospitalDetails; // id -> {name, location}
+    private static Map<Integer, String[]> donorDetails;    // id -> {name, blood type, location}
+    private static volatile boolean hospitalsStale, donorsChanged;
+
+    private static final Object HOSPITALS_REFRESH = new Object(); // one hospital reload at a time
+    private static final DonorChanges DONOR_CHANGES = new DonorChanges("name, blood_type, location, latitude, longitude");
+    private static final Object DONORS_REFRESH = new Object(); // one donor refresh at a time, guards DONOR_CHANGES
+
+    static {
+        ChangeNotifier.subscribe(ChangeNotifier.HOSPITALS, () -> hospitalsStale = true);
+        ChangeNotifier.subscribe(ChangeNotifier.DONORS, () -> donorsChanged = true);
+    }
+
+    // The k hospitals nearest (lat, lon) holding at least minUnits that recipientType can receive,
+    // counting every compatible type (BloodTypes), nearest first.
+    public static List<HospitalHit> nearestHospitals(Connection con, double lat, double lon, String recipientType,
+                                                     int minUnits, int k) throws SQLException {
+        ensureHospitals(con);
+        int recipient = BloodTypes.index(recipientType);
+        if (recipient < 0) return new ArrayList<>();
+        GeoGrid grid;
+        Map<Integer, String[]> details;
+        synchronized (GeoIndex.class) {
+            grid = hospitals;
+            details = hospitalDetails;
+        }
+        Map<Integer, int[]> units = new HashMap<>(); // id -> {total, exact}
+        // stock of each ring of cells from StockCache, only for the hospitals in that ring
+        List<GeoGrid.Hit> hits = grid.nearest(lat, lon, k, ids -> {
+            List<Integer> accepted = new ArrayList<>();
+            for (Map.Entry<Integer, int[]> e : StockCache.units(con, ids).entrySet()) {
+                int[] u = StockSearch.compatibleUnits(e.getValue(), recipient);
+                if (u[0] < Math.max(1, minUnits)) continue;
+                units.put(e.getKey(), u);
+                accepted.add(e.getKey());
+            }
+            return accepted.stream().mapToInt(Integer::intValue).toArray();
+        });
+        List<HospitalHit> result = new ArrayList<>(hits.size());
+        for (GeoGrid.Hit h : hits) {
+            String[] d = details.get(h.id);
+            int[] u = units.get(h.id);
+            result.add(new HospitalHit(h.id, d[0], d[1], u[0], u[1], h.km));
+        }
+        return result;
+    }
+
+    // Donors eligible now within radiusKm of (lat, lon) who can give to recipientType (null for
+    // any), nearest first, at most limit of them.
+    public static List<DonorHit> donorsWithin(double lat, double lon, double radiusKm,
+                                              String recipientType, int limit) throws SQLException {
+        ensureDonors();
+        BitSet eligible = EligibilityIndex.eligibleNow();
+        List<DonorHit> result = new ArrayList<>();
+        synchronized (GeoIndex.class) {
+            for (GeoGrid.Hit h : donors.within(lat, lon, radiusKm)) {
+                if (!eligible.get(h.id)) continue;
+                String[] d = donorDetails.get(h.id);
+                if (recipientType != null && !BloodTypes.canDonate(d[1], recipientType)) continue;
+                result.add(new DonorHit(h.id, d[0], d[1], d[2], h.km));
+                if (result.size() == limit) break;
+            }
+        }
+        return result;
+    }
+
+    // coordinates of a hospital, or null if its location is not on the map
+    public static double[] hospitalPoint(Connection con, int id) throws SQLException {
+        ensureHospitals(con);
+        synchronized (GeoIndex.class) {
+            return hospitals.point(id);
+        }
+    }
+
+    public static synchronized String stats() {
+        return "geo-index[hospitals=" + (hospitals == null ? 0 : hospitals.size())
+                + " donors=" + (donors == null ? 0 : donors.size()) + " places=" + Gazetteer.size() + "]";
+    }
+
+    // built without the lock, so searches keep answering from the old grid meanwhile
+    private static void ensureHospitals(Connection con) throws SQLException {
+        synchronized (HOSPITALS_REFRESH) {
+            synchronized (GeoIndex.class) {
+                if (hospitals != null && !hospitalsStale) return;
+            }
+            hospitalsStale = false; // changes landing during the read mark it stale again
+            GeoGrid grid = new GeoGrid(CELL_DEG);
+            Map<Integer, String[]> details = new HashMap<>();
+            List<double[]> resolved = new ArrayList<>();
+            try (Statement st = con.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT id, name, location, latitude, longitude FROM hospitals")) {
+                while (rs.next()) {
+                    int id = rs.getInt(1);
+                    double[] p = point(rs, 4, rs.getString(3), id, resolved);
+                    if (p == null) continue;
+                    grid.add(id, p[0], p[1]);
+                    details.put(id, new String[] { rs.getString(2), rs.getString(3) });
+                }
+            }
+            synchronized (GeoIndex.class) {
+                hospitals = grid; // swapped only once complete, so a failed reload keeps the old index
+                hospitalDetails = details;
+            }
+            backfill(con, "hospitals", resolved);
+        }
+    }
+
+    private static void ensureDonors() throws SQLException {
+        synchronized (DONORS_REFRESH) {
+            if (DONOR_CHANGES.loaded() && !donorsChanged) return;
+            MigrationRunner.ensureMigrated(); // adds donors.updated_at on older databases
+            donorsChanged = false; // changes landing during the read mark it changed again
+            try (Connection con = DBConnection.getConnection()) {
+                List<double[]> resolved = new ArrayList<>();
+                if (DONOR_CHANGES.loaded()) {
+                    List<Object[]> rows = new ArrayList<>(); // {id, point or null, details}
+                    boolean complete = DONOR_CHANGES.readChanged(con, rs -> {
+                        int id = rs.getInt(1);
+                        rows.add(new Object[] { id, point(rs, 5, rs.getString(4), id, resolved),
+                                new String[] { rs.getString(2), rs.getString(3), rs.getString(4) } });
+                    });
+                    synchronized (GeoIndex.class) {
+                        for (Object[] r : rows) {
+                            int id = (Integer) r[0];
+                            donors.remove(id);
+                            donorDetails.remove(id);
+                            double[] p = (double[]) r[1];
+                            if (p == null) continue;
+                            donors.add(id, p[0], p[1]);
+                            donorDetails.put(id, (String[]) r[2]);
+                        }
+                    }
+                    if (complete) {
+                        backfill(con, "donors", resolved);
+                        return;
+                    }
+                    resolved.clear();
+                }
+
+                // built without the lock, so searches keep answering from the old index meanwhile
+                GeoGrid grid = new GeoGrid(CELL_DEG);
+                Map<Integer, String[]> details = new HashMap<>();
+                DONOR_CHANGES.readAll(con, rs -> {
+                    int id = rs.getInt(1);
+                    double[] p = point(rs, 5, rs.getString(4), id, resolved);
+                    if (p == null) return;
+                    grid.add(id, p[0], p[1]);
+                    details.put(id, new String[] { rs.getString(2), rs.getString(3), rs.getString(4) });
+                });
+                synchronized (GeoIndex.class) {
+                    donors = grid;
+                    donorDetails = details;
+                }
+                backfill(con, "donors", resolved); // after the streamed result is closed
+            }
+        }
+    }
+
+    // the row's stored coordinates, else the gazetteer's for its location (queued for write-back)
+    private static double[] point(ResultSet rs, int latColumn, String location, int id, List<double[]> resolved)
+            throws SQLException {
+        double lat = rs.getDouble(latColumn);
+        if (!rs.wasNull()) return new double[] { lat, rs.getDouble(latColumn + 1) };
+        double[] p = Gazetteer.resolve(location);
+        if (p != null) resolved.add(new double[] { id, p[0], p[1] });
+        return p;
+    }
+
+    // Not announced through ChangeNotifier: coordinates are not shown anywhere, and a bump would
+    // make every client reload the table for nothing. For the same reason donors keep their
+    // updated_at (setting it explicitly stops MySQL from moving it), so no catch-up reads them again.
+    private static void backfill(Connection con, String table, List<double[]> resolved) throws SQLException {
+        if (resolved.isEmpty()) return;
+        String keep = table.equals("donors") ? ", updated_at = updated_at" : "";
+        try (PreparedStatement pst = con.prepareStatement(
+                "UPDATE " + table + " SET latitude = ?, longitude = ?" + keep + " WHERE id = ? AND latitude IS NULL")) {
+            for (double[] r : resolved) {
+                pst.setDouble(1, r[1]);
+                pst.setDouble(2, r[2]);
+                pst.setInt(3, (int) r[0]);
+                pst.addBatch();
+            }
+            pst.executeBatch();
+        }
+    }
+}
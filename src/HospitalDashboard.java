@@ -2,10 +2,10 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.sql.*;
-import javax.swing.Timer;
 
 public class HospitalDashboard extends JFrame {
     private int hospitalId;
+    private Session session;
 
     // nav buttons (moved to top)
     private JButton viewStockButton, addStockButton, viewRequestsButton, requestBloodFromDonorButton, refreshNowButton;
@@ -17,15 +17,30 @@ public class HospitalDashboard extends JFrame {
     private final String CARD_REQUEST_DONOR = "card_request_donor";
 
     // components inside cards
-    private JTextArea stockArea;
-    private JTextArea requestsArea;
+    private PagedTable stockTable;
+    private PagedTable requestsTable;
     private JTextField addBloodTypeField;
     private JSpinner addUnitsSpinner;
     private JPanel reqDonorCard; // Reference to donor card for refresh
+    private JComboBox<String> recipientTypeCombo;
+    private JCheckBox nearbyOnlyBox;
+    private JComboBox<String> radiusCombo;
+    private JLabel matchStatusLabel;
+    private int matchGeneration; // bumped per donor query, so a late status from an old one is dropped
+    private JTextField donorNameField, donorLocationField;
+    private JComboBox<String> donorBloodCombo;
+    private Timer donorSearchTimer;
+    private PagedTable donorTable;
     private JButton logoutButton;
     
-    // auto-refresh timer for incoming requests
-    private Timer requestsRefreshTimer;
+    // refresh the visible card when another client changes its data
+    private final java.util.List<ChangeNotifier.Subscription> subscriptions = new java.util.ArrayList<>();
+
+    // background JDBC, results are published back on the EDT
+    private final DataLoader loader = new DataLoader();
+
+    // local copy of this hospital's requests, refreshed by delta sync
+    private final RequestSync requestSync;
 
     private Mode currentMode = Mode.NONE;
     private enum Mode { NONE, ADD_STOCK, REQUEST_DONOR, RESPOND_REQUEST }
@@ -37,10 +52,15 @@ public class HospitalDashboard extends JFrame {
     private final Font baseFont = new Font("Segoe UI", Font.PLAIN, 14);
     private final Font titleFont = new Font("Segoe UI", Font.BOLD, 18);
     private final Font navFont = new Font("Segoe UI", Font.BOLD, 13);
-    private final Font monoLarge = new Font("Consolas", Font.PLAIN, 15);
 
     public HospitalDashboard(int hospitalId) {
-        this.hospitalId = hospitalId;
+        this(Session.ofId(Session.HOSPITAL, hospitalId));
+    }
+
+    public HospitalDashboard(Session session) {
+        this.session = session;
+        this.hospitalId = session.id;
+        this.requestSync = RequestSync.forHospital(hospitalId);
         setTitle("DROP4LIFE — Hospital Dashboard");
         setSize(980, 720);
         setResizable(false);
@@ -58,16 +78,22 @@ public class HospitalDashboard extends JFrame {
         JPanel topInfo = new JPanel(new BorderLayout());
         topInfo.setBackground(new Color(150, 20, 40));
         topInfo.setPreferredSize(new Dimension(0, 36));
-        String hospName = getHospitalName();
         JLabel appLabel = new JLabel("  DROP4LIFE", SwingConstants.LEFT);
         appLabel.setForeground(Color.WHITE);
         appLabel.setFont(new Font("Segoe UI", Font.BOLD, 15));
-        JLabel hospLabel = new JLabel("Hospital: " + hospName + "  (ID: " + hospitalId + ")", SwingConstants.RIGHT);
+        JLabel hospLabel = new JLabel(headerText(), SwingConstants.RIGHT);
         hospLabel.setForeground(new Color(255, 230, 230));
         hospLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
         topInfo.add(appLabel, BorderLayout.WEST);
         topInfo.add(hospLabel, BorderLayout.EAST);
         topPanel.add(topInfo, BorderLayout.NORTH);
+        if (!session.hasProfile()) { // opened with only an id
+            loader.execute(con -> ReferenceData.profile(con, Session.HOSPITAL, hospitalId), loaded -> {
+                if (loaded == null) return;
+                this.session = loaded;
+                hospLabel.setText(headerText());
+            }, Throwable::printStackTrace);
+        }
 
         // Navigation bar (tighter spacing so buttons fit on one row)
         JPanel navBar = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 6));
@@ -126,13 +152,9 @@ public class HospitalDashboard extends JFrame {
         stockTitle.setFont(titleFont);
         stockCard.add(stockTitle, BorderLayout.NORTH);
 
-        stockArea = new JTextArea();
-        stockArea.setEditable(false);
-        stockArea.setFont(monoLarge);
-        stockArea.setBackground(Color.WHITE);
-        stockArea.setBorder(BorderFactory.createLineBorder(new Color(230,230,230)));
-        JScrollPane stockScroll = new JScrollPane(stockArea);
-        stockCard.add(stockScroll, BorderLayout.CENTER);
+        stockTable = new PagedTable(loader, CARD_STOCK, "blood types", "Blood Type", "Units");
+        stockTable.enableSorting(new String[] { "blood_type", "units" }, 0, true);
+        stockCard.add(stockTable, BorderLayout.CENTER);
         cards.add(stockCard, CARD_STOCK);
 
         // ADD STOCK CARD
@@ -166,15 +188,18 @@ public class HospitalDashboard extends JFrame {
         addSubmit.addActionListener(e -> {
             String bt = addBloodTypeField.getText().trim().toUpperCase();
             int units = (Integer) addUnitsSpinner.getValue();
-            if (bt.isEmpty()) {
+            if (BloodTypes.index(bt) < 0) {
                 JOptionPane.showMessageDialog(this, "Enter blood type (e.g. A+).");
                 return;
             }
-            updateBloodStock(bt, units);
-            loadStock();
-            JOptionPane.showMessageDialog(this, "Added " + units + " units of " + bt + ".");
-            addBloodTypeField.setText("");
-            addUnitsSpinner.setValue(1);
+            addSubmit.setEnabled(false);
+            updateBloodStock(bt, units, () -> {
+                addSubmit.setEnabled(true);
+                loadStock();
+                JOptionPane.showMessageDialog(this, "Added " + units + " units of " + bt + ".");
+                addBloodTypeField.setText("");
+                addUnitsSpinner.setValue(1);
+            }, () -> addSubmit.setEnabled(true));
         });
         addCard.add(addSubmit, gbc);
         cards.add(addCard, CARD_ADD);
@@ -187,13 +212,10 @@ public class HospitalDashboard extends JFrame {
         reqTitle.setFont(titleFont);
         reqCard.add(reqTitle, BorderLayout.NORTH);
 
-        requestsArea = new JTextArea();
-        requestsArea.setEditable(false);
-        requestsArea.setFont(monoLarge);
-        requestsArea.setBackground(Color.WHITE);
-        requestsArea.setBorder(BorderFactory.createLineBorder(new Color(230,230,230)));
-        JScrollPane reqScroll = new JScrollPane(requestsArea);
-        reqCard.add(reqScroll, BorderLayout.CENTER);
+        requestsTable = new PagedTable(loader, CARD_REQUESTS, "requests",
+                "ID", "Seeker", "Blood Needed", "Status", "Date", "Details");
+        requestsTable.enableSorting(new String[] { "id", "seeker", "blood", "status", "date", null }, 4, false);
+        reqCard.add(requestsTable, BorderLayout.CENTER);
         cards.add(reqCard, CARD_REQUESTS);
 
         // REQUEST DONOR CARD (FINAL FIXED VERSION)
@@ -203,16 +225,86 @@ public class HospitalDashboard extends JFrame {
 
         JLabel reqDonorTitle = new JLabel("Request Blood from Donors", SwingConstants.LEFT);
         reqDonorTitle.setFont(titleFont);
-        reqDonorTitle.setBorder(BorderFactory.createEmptyBorder(0, 0, 12, 0));
-        reqDonorCard.add(reqDonorTitle, BorderLayout.NORTH);
-
-        JPanel donorListPanel = new JPanel();
-        donorListPanel.setLayout(new BoxLayout(donorListPanel, BoxLayout.Y_AXIS));
-        donorListPanel.setBackground(Color.WHITE);
-        JScrollPane donorScroll = new JScrollPane(donorListPanel);
-        donorScroll.setPreferredSize(new Dimension(900, 500));
-        donorScroll.setBorder(BorderFactory.createLineBorder(new Color(230, 230, 230)));
-        reqDonorCard.add(donorScroll, BorderLayout.CENTER);
+        reqDonorTitle.setBorder(BorderFactory.createEmptyBorder(0, 0, 6, 0));
+
+        // recipient type narrows the list to compatible, eligible donors, best matches first
+        JPanel matchBar = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 4));
+        matchBar.setBackground(Color.WHITE);
+        JLabel recipientLabel = new JLabel("Recipient blood type:");
+        recipientLabel.setFont(baseFont);
+        matchBar.add(recipientLabel);
+        String[] recipientChoices = new String[BloodTypes.ALL.length + 1];
+        recipientChoices[0] = "All donors";
+        System.arraycopy(BloodTypes.ALL, 0, recipientChoices, 1, BloodTypes.ALL.length);
+        recipientTypeCombo = new JComboBox<>(recipientChoices);
+        recipientTypeCombo.setFont(baseFont);
+        recipientTypeCombo.addActionListener(e -> loadAvailableDonors());
+        matchBar.add(recipientTypeCombo);
+        nearbyOnlyBox = new JCheckBox("Only donors in our location");
+        nearbyOnlyBox.setFont(baseFont);
+        nearbyOnlyBox.setBackground(Color.WHITE);
+        nearbyOnlyBox.addActionListener(e -> loadAvailableDonors());
+        matchBar.add(nearbyOnlyBox);
+        radiusCombo = new JComboBox<>(RADIUS_CHOICES);
+        radiusCombo.setFont(baseFont);
+        radiusCombo.addActionListener(e -> loadAvailableDonors());
+        matchBar.add(radiusCombo);
+        matchStatusLabel = new JLabel(" ");
+        matchStatusLabel.setForeground(new Color(100, 100, 100));
+        matchBar.add(matchStatusLabel);
+
+        // search runs in SQL; typing restarts a short timer so a query only goes out once typing pauses
+        JPanel searchBar = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 4));
+        searchBar.setBackground(Color.WHITE);
+        searchBar.add(new JLabel("Name:"));
+        donorNameField = new JTextField(12);
+        searchBar.add(donorNameField);
+        searchBar.add(new JLabel("Blood type:"));
+        String[] bloodChoices = new String[BloodTypes.ALL.length + 1];
+        bloodChoices[0] = "Any";
+        System.arraycopy(BloodTypes.ALL, 0, bloodChoices, 1, BloodTypes.ALL.length);
+        donorBloodCombo = new JComboBox<>(bloodChoices);
+        donorBloodCombo.addActionListener(e -> loadAvailableDonors());
+        searchBar.add(donorBloodCombo);
+        searchBar.add(new JLabel("Location:"));
+        donorLocationField = new JTextField(12);
+        searchBar.add(donorLocationField);
+        donorSearchTimer = new Timer(SEARCH_DEBOUNCE_MS, e -> loadAvailableDonors());
+        donorSearchTimer.setRepeats(false);
+        javax.swing.event.DocumentListener restartSearch = new javax.swing.event.DocumentListener() {
+            public void insertUpdate(javax.swing.event.DocumentEvent e) { donorSearchTimer.restart(); }
+            public void removeUpdate(javax.swing.event.DocumentEvent e) { donorSearchTimer.restart(); }
+            public void changedUpdate(javax.swing.event.DocumentEvent e) { donorSearchTimer.restart(); }
+        };
+        donorNameField.getDocument().addDocumentListener(restartSearch);
+        donorLocationField.getDocument().addDocumentListener(restartSearch);
+
+        JPanel reqDonorHeader = new JPanel(new GridLayout(3, 1));
+        reqDonorHeader.setBackground(Color.WHITE);
+        reqDonorHeader.add(reqDonorTitle);
+        reqDonorHeader.add(matchBar);
+        reqDonorHeader.add(searchBar);
+        reqDonorHeader.setBorder(BorderFactory.createEmptyBorder(0, 0, 8, 0));
+        reqDonorCard.add(reqDonorHeader, BorderLayout.NORTH);
+
+        donorTable = new PagedTable(loader, CARD_REQUEST_DONOR, "donors", "Name", "Blood Type", "Location", "Eligibility");
+        donorTable.enableSorting(new String[] { "name", "blood_type", "location", null }, 0, true);
+        donorTable.getTable().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) sendToSelectedDonor();
+            }
+        });
+        reqDonorCard.add(donorTable, BorderLayout.CENTER);
+
+        JPanel donorActions = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 6));
+        donorActions.setBackground(Color.WHITE);
+        JButton sendButton = new JButton("Send Request");
+        stylePrimaryButton(sendButton);
+        sendButton.setPreferredSize(new Dimension(140, 32));
+        sendButton.addActionListener(e -> sendToSelectedDonor());
+        donorActions.add(sendButton);
+        reqDonorCard.add(donorActions, BorderLayout.SOUTH);
         cards.add(reqDonorCard, CARD_REQUEST_DONOR);
 
         root.add(cards, BorderLayout.CENTER);
@@ -220,15 +312,15 @@ public class HospitalDashboard extends JFrame {
         setLocationRelativeTo(null);
         setVisible(true);
 
-        // Auto-refresh timer
-        requestsRefreshTimer = new Timer(10_000, e -> {
+        // Re-fetch only when the underlying tables actually change
+        subscriptions.add(ChangeNotifier.subscribe(ChangeNotifier.REQUESTS, () -> {
             if (isShowingCard(CARD_REQUESTS)) loadRequests();
-        });
-        requestsRefreshTimer.setInitialDelay(0);
-        requestsRefreshTimer.start();
+        }));
+        subscriptions.add(ChangeNotifier.subscribe(ChangeNotifier.BLOOD_STOCKS, () -> {
+            if (isShowingCard(CARD_STOCK)) loadStock();
+        }));
 
         showCard(CARD_STOCK);
-        loadStock();
     }
 
     private JButton createNavButton(String text) {
@@ -253,6 +345,7 @@ public class HospitalDashboard extends JFrame {
     private void showCard(String cardName) {
         CardLayout cl = (CardLayout) cards.getLayout();
         cl.show(cards, cardName);
+        if (!cardName.equals(currentCard)) loader.cancelAll(); // drop loads for the card being left
         currentCard = cardName;
 
         if (CARD_REQUESTS.equals(cardName)) {
@@ -268,72 +361,137 @@ public class HospitalDashboard extends JFrame {
         return cardName.equals(currentCard);
     }
 
-    // FINAL FIXED METHOD: Uses ONLY id, name, blood_type columns
+    private static final int MATCH_LIMIT = 50;
+    private static final String[] RADIUS_CHOICES = { "Any distance", "Within 10 km", "Within 25 km", "Within 50 km", "Within 100 km" };
+    private static final int[] RADIUS_KM = { 0, 10, 25, 50, 100 };
+    private static final int NEARBY_LIMIT = 200;
+    private static final int SEARCH_DEBOUNCE_MS = 300;
+
     private void loadAvailableDonors() {
-        JScrollPane donorScroll = (JScrollPane) reqDonorCard.getComponent(1);
-        JPanel donorPanel = (JPanel) donorScroll.getViewport().getView();
-        donorPanel.removeAll();
-        
-        // Query now also fetches donor location
-        String query = "SELECT id, name, blood_type, location FROM donors ORDER BY name";
-        
-        try (Connection con = DBConnection.getConnection();
-             PreparedStatement pst = con.prepareStatement(query)) {
-            
-            ResultSet rs = pst.executeQuery();
-            
-            if (!rs.isBeforeFirst()) {
-                JLabel noDonors = new JLabel("No donors registered.");
-                noDonors.setFont(baseFont);
-                noDonors.setForeground(new Color(100, 100, 100));
-                noDonors.setHorizontalAlignment(SwingConstants.CENTER);
-                donorPanel.add(noDonors);
+        donorSearchTimer.stop();
+        matchGeneration++;
+        int typeChoice = recipientTypeCombo.getSelectedIndex();
+        boolean matching = typeChoice > 0;
+        int radiusKm = RADIUS_KM[radiusCombo.getSelectedIndex()];
+        // the matcher and the radius search rank by themselves, so the plain search filters only apply to "All donors"
+        donorNameField.setEnabled(!matching && radiusKm == 0);
+        donorBloodCombo.setEnabled(!matching && radiusKm == 0);
+        donorLocationField.setEnabled(!matching && radiusKm == 0);
+        nearbyOnlyBox.setEnabled(matching && radiusKm == 0 && session.location != null);
+        if (radiusKm > 0) {
+            loadNearbyDonors(matching ? BloodTypes.ALL[typeChoice - 1] : null, radiusKm);
+            return;
+        }
+        if (matching) {
+            loadMatchingDonors(BloodTypes.ALL[typeChoice - 1], nearbyOnlyBox.isSelected());
+            return;
+        }
+        matchStatusLabel.setText(" ");
+        String name = donorNameField.getText().trim();
+        String blood = donorBloodCombo.getSelectedIndex() > 0 ? (String) donorBloodCombo.getSelectedItem() : null;
+        String location = donorLocationField.getText().trim();
+        donorTable.setSource((con, page) -> fetchDonorPage(con,
+                name.isEmpty() ? null : name, blood, location.isEmpty() ? null : location, page));
+    }
+
+    // the filters present, then page.bindAfter, then page.limit; also checked by QueryPlanCheck
+    static String donorPageSql(boolean name, boolean blood, boolean location, PagedTable.Page page) {
+        StringBuilder q = new StringBuilder("SELECT id, name, blood_type, location FROM donors WHERE 1 = 1");
+        if (name) q.append(" AND name LIKE ?");
+        if (blood) q.append(" AND blood_type = ?");
+        if (location) q.append(" AND location LIKE ?");
+        return q.append(page.after("id")).append(page.orderBy("id")).append(" LIMIT ?").toString();
+    }
+
+    // one keyset page of donors in the table's sort order; runs on a background thread
+    private static java.util.List<Object[]> fetchDonorPage(Connection con, String name, String blood, String location,
+                                                           PagedTable.Page page) throws SQLException {
+        java.util.List<Object[]> rows = new java.util.ArrayList<>();
+        try (PreparedStatement pst = con.prepareStatement(donorPageSql(name != null, blood != null, location != null, page))) {
+            int p = 1;
+            if (name != null) pst.setString(p++, DBConnection.escapeLike(name) + "%");
+            if (blood != null) pst.setString(p++, blood);
+            if (location != null) pst.setString(p++, DBConnection.escapeLike(location) + "%");
+            p = page.bindAfter(pst, p);
+            pst.setInt(p, page.limit);
+            try (ResultSet rs = pst.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new Object[] { rs.getInt("id"), rs.getString("name"), rs.getString("blood_type"),
+                            rs.getString("location"), null });
+                }
             }
-            
-            while (rs.next()) {
-                int donorId = rs.getInt("id");
-                String name = rs.getString("name");
-                String bloodType = rs.getString("blood_type");
-                String location = rs.getString("location"); // new
-                
-                JPanel donorRow = new JPanel(new BorderLayout(10, 8));
-                donorRow.setBackground(Color.WHITE);
-                donorRow.setBorder(BorderFactory.createEmptyBorder(8, 0, 8, 0));
-                donorRow.setMaximumSize(new Dimension(Integer.MAX_VALUE, 70));
-                
-                // Donor info (NAME + BLOOD TYPE + LOCATION)
-                JPanel infoPanel = new JPanel(new BorderLayout());
-                infoPanel.setBackground(Color.WHITE);
-                infoPanel.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 10));
-                
-                // Use simple HTML to show name/blood type on top and location smaller below
-                String locText = (location == null || location.trim().isEmpty()) ? "Location: Unknown" : "Location: " + location;
-                JLabel detailsLabel = new JLabel("<html><b>" + escapeHtml(name) + "</b> (" + escapeHtml(bloodType) + ")<br>"
-                        + "<span style='font-size:11px;color:#555;'>" + escapeHtml(locText) + "</span></html>");
-                detailsLabel.setFont(new Font("Segoe UI", Font.PLAIN, 13));
-                
-                infoPanel.add(detailsLabel, BorderLayout.CENTER);
-                
-                // Send Request button
-                JButton sendButton = new JButton("Send Request");
-                stylePrimaryButton(sendButton);
-                sendButton.addActionListener(e -> sendRequestToDonor(donorId, name, bloodType));
-                
-                donorRow.add(infoPanel, BorderLayout.CENTER);
-                donorRow.add(sendButton, BorderLayout.EAST);
-                donorPanel.add(donorRow);
+        }
+        // eligibility comes from the in-memory index, not a per-donor history query
+        for (Object[] r : rows) {
+            int id = (Integer) r[0];
+            java.time.LocalDate next = EligibilityIndex.nextEligibleDate(id);
+            if (EligibilityIndex.isEligible(id)) r[4] = "Eligible now";
+            else r[4] = next != null ? "Eligible from " + next : "Not eligible";
+        }
+        return rows;
+    }
+
+    private void loadMatchingDonors(String recipientType, boolean nearbyOnly) {
+        matchStatusLabel.setText("Matching...");
+        int gen = matchGeneration;
+        String location = session.location;
+        // the matches come back ranked as a single page; the header sort does not reorder them
+        donorTable.setSource((con, page) -> {
+            java.util.List<Object[]> rows = new java.util.ArrayList<>();
+            if (!page.isFirst()) return rows;
+            DonorMatcher.Result result = DonorMatcher.topK(recipientType, location, nearbyOnly, MATCH_LIMIT);
+            for (DonorMatcher.Match m : result.matches) {
+                String note = "Eligible now" + (m.exactType ? "" : " · compatible with " + recipientType);
+                rows.add(new Object[] { m.id, m.name, m.bloodType, m.location, note });
             }
-            
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            JLabel errorLabel = new JLabel("Error loading donors: " + ex.getMessage());
-            errorLabel.setForeground(Color.RED);
-            errorLabel.setHorizontalAlignment(SwingConstants.CENTER);
-            donorPanel.add(errorLabel);
+            String status = String.format("Top %d of %d compatible eligible donors (%.1f ms)",
+                    result.matches.size(), result.candidates, result.micros / 1000.0);
+            showMatchStatus(gen, status);
+            return rows;
+        });
+    }
+
+    // eligible donors within radiusKm of this hospital, nearest first, as a single page
+    private void loadNearbyDonors(String recipientType, int radiusKm) {
+        matchStatusLabel.setText("Searching...");
+        int gen = matchGeneration;
+        donorTable.setSource((con, page) -> {
+            java.util.List<Object[]> rows = new java.util.ArrayList<>();
+            if (!page.isFirst()) return rows;
+            double[] here = GeoIndex.hospitalPoint(con, hospitalId);
+            if (here == null) here = Gazetteer.resolve(session.location);
+            if (here == null) {
+                showMatchStatus(gen, "Our location is not on the map; distance search is unavailable");
+                return rows;
+            }
+            long start = System.nanoTime();
+            java.util.List<GeoIndex.DonorHit> hits = GeoIndex.donorsWithin(here[0], here[1], radiusKm, recipientType, NEARBY_LIMIT);
+            long micros = (System.nanoTime() - start) / 1000;
+            for (GeoIndex.DonorHit h : hits) {
+                String note = String.format("Eligible now · %.1f km", h.km);
+                rows.add(new Object[] { h.id, h.name, h.bloodType, h.location, note });
+            }
+            String status = String.format("%d eligible donors within %d km (%.1f ms)", hits.size(), radiusKm, micros / 1000.0);
+            showMatchStatus(gen, status);
+            return rows;
+        });
+    }
+
+    // from a page source's thread; dropped if the user has moved on to another donor query
+    private void showMatchStatus(int gen, String status) {
+        SwingUtilities.invokeLater(() -> {
+            if (gen == matchGeneration) matchStatusLabel.setText(status);
+        });
+    }
+
+    private void sendToSelectedDonor() {
+        Object id = donorTable.selectedKey();
+        if (id == null) {
+            JOptionPane.showMessageDialog(this, "Select a donor first.");
+            return;
         }
-        
-        donorPanel.revalidate();
-        donorPanel.repaint();
+        Object[] row = donorTable.selectedRow();
+        sendRequestToDonor((Integer) id, (String) row[0], (String) row[1]);
     }
 
     // Send request to donor
@@ -359,118 +517,79 @@ public class HospitalDashboard extends JFrame {
                 return;
             }
             
-            try (Connection con = DBConnection.getConnection();
-                 PreparedStatement pst = con.prepareStatement(
-                    "INSERT INTO donor_requests (hospital_id, donor_id, details, request_date) VALUES (?, ?, ?, NOW())")) {
-                
-                pst.setInt(1, hospitalId);
-                pst.setInt(2, donorId);
-                pst.setString(3, details);
-                pst.executeUpdate();
-                
+            loader.execute(con -> {
+                try (PreparedStatement pst = con.prepareStatement(
+                        "INSERT INTO donor_requests (hospital_id, donor_id, details, request_date) VALUES (?, ?, ?, NOW())")) {
+                    pst.setInt(1, hospitalId);
+                    pst.setInt(2, donorId);
+                    pst.setString(3, details);
+                    int n = pst.executeUpdate();
+                    ChangeNotifier.bump(con, ChangeNotifier.DONOR_REQUESTS);
+                    return n;
+                }
+            }, n -> {
                 JOptionPane.showMessageDialog(
                     this, "Request sent successfully to " + donorName + "!"
                 );
-                
                 loadAvailableDonors();
-                
-            } catch (SQLException ex) {
+            }, ex -> {
                 ex.printStackTrace();
                 JOptionPane.showMessageDialog(this, "Error sending request: " + ex.getMessage());
-            }
+            });
         }
     }
 
+    // served from StockCache, which the stock writes go through; only a miss reaches the database
     private void loadStock() {
-        SwingUtilities.invokeLater(() -> {
-            String query = "SELECT blood_type, units FROM blood_stocks WHERE hospital_id = ? ORDER BY blood_type";
-            StringBuilder sb = new StringBuilder();
-            try (Connection con = DBConnection.getConnection();
-                 PreparedStatement pst = con.prepareStatement(query)) {
-                pst.setInt(1, hospitalId);
-                ResultSet rs = pst.executeQuery();
-                while (rs.next()) {
-                    sb.append(String.format("%-4s : %4d units%n", rs.getString("blood_type"), rs.getInt("units")));
-                }
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                sb.append("Error reading stock: ").append(ex.getMessage());
+        loader.load(CARD_STOCK, con -> StockCache.units(con, hospitalId), units -> {
+            java.util.List<Object[]> rows = new java.util.ArrayList<>();
+            for (int i = 0; i < units.length; i++) {
+                if (units[i] != StockCache.NONE) rows.add(new Object[] { BloodTypes.ALL[i], BloodTypes.ALL[i], units[i] });
             }
-            stockArea.setText(sb.length() == 0 ? "No stock available." : sb.toString());
+            stockTable.setRows(rows);
+        }, ex -> {
+            ex.printStackTrace();
+            stockTable.showError("Error loading stock: " + ex.getMessage());
         });
     }
 
+    // only requests changed since the last refresh are fetched; the table is filled from the local copy
     private void loadRequests() {
-        SwingUtilities.invokeLater(() -> {
-            StringBuilder sb = new StringBuilder();
-            String query =
-                "SELECT r.id, s.name AS seeker_name, s.blood_type_needed, r.details, " +
-                "r.status, r.request_date " +
-                "FROM requests r JOIN seekers s ON r.seeker_id = s.id " +
-                "WHERE r.hospital_id = ? ORDER BY r.request_date DESC";
-
-            try (Connection con = DBConnection.getConnection();
-                 PreparedStatement pst = con.prepareStatement(query)) {
-                pst.setInt(1, hospitalId);
-                ResultSet rs = pst.executeQuery();
-                while (rs.next()) {
-                    sb.append("Request ID: ").append(rs.getInt("id"))
-                      .append(", Seeker: ").append(rs.getString("seeker_name"))
-                      .append(", Blood Needed: ").append(rs.getString("blood_type_needed"))
-                      .append(", Status: ").append(rs.getString("status"))
-                      .append(", Date: ").append(rs.getTimestamp("request_date"))
-                      .append("\nDetails: ").append(rs.getString("details"))
-                      .append("\n\n");
-                }
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                sb.append("Error reading requests: ").append(ex.getMessage());
+        loader.load(CARD_REQUESTS, con -> requestSync.sync(con), rows -> {
+            java.util.List<Object[]> shown = new java.util.ArrayList<>(rows.size());
+            for (RequestSync.Request r : rows) {
+                shown.add(new Object[] { r.id, r.id, r.counterpart, r.bloodNeeded, r.status, r.requestDate, r.details });
             }
-            if (sb.length() == 0) sb.append("No requests found.");
-            requestsArea.setText(sb.toString());
+            requestsTable.setRows(shown);
+        }, ex -> {
+            ex.printStackTrace();
+            requestsTable.showError("Error reading requests: " + ex.getMessage());
         });
     }
 
-    private void updateBloodStock(String bloodType, int units) {
-        SwingUtilities.invokeLater(() -> {
-            String updateQuery = "UPDATE blood_stocks SET units = units + ? WHERE hospital_id = ? AND blood_type = ?";
-            try (Connection con = DBConnection.getConnection();
-                 PreparedStatement pst = con.prepareStatement(updateQuery)) {
-                pst.setInt(1, units);
-                pst.setInt(2, hospitalId);
-                pst.setString(3, bloodType);
-                int updated = pst.executeUpdate();
-                if (updated == 0 && units > 0) {
-                    String insertQuery = "INSERT INTO blood_stocks (hospital_id, blood_type, units) VALUES (?, ?, ?)";
-                    try (PreparedStatement insertPst = con.prepareStatement(insertQuery)) {
-                        insertPst.setInt(1, hospitalId);
-                        insertPst.setString(2, bloodType);
-                        insertPst.setInt(3, units);
-                        insertPst.executeUpdate();
-                    }
-                }
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(this, "Error updating stock: " + ex.getMessage());
+    // coalesced with other stock changes for this hospital; callbacks run once the write has committed
+    private void updateBloodStock(String bloodType, int units, Runnable onDone, Runnable onFailed) {
+        StockAdjuster.submit(hospitalId, bloodType, units).whenComplete((ok, err) -> SwingUtilities.invokeLater(() -> {
+            if (!isDisplayable()) return;
+            if (err == null) {
+                ActivityLog.append("Hospital " + hospitalId + " added " + units + " units of " + bloodType);
+                onDone.run();
+                return;
             }
-        });
+            err.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Error updating stock: " + err.getMessage());
+            onFailed.run();
+        }));
     }
 
-    private String getHospitalName() {
-        String query = "SELECT name FROM hospitals WHERE id = ?";
-        try (Connection con = DBConnection.getConnection();
-             PreparedStatement pst = con.prepareStatement(query)) {
-            pst.setInt(1, hospitalId);
-            ResultSet rs = pst.executeQuery();
-            if (rs.next()) return rs.getString("name");
-        } catch (SQLException ignored) {}
-        return "Unknown";
+    private String headerText() {
+        return "Hospital: " + (session.hasProfile() ? session.name : "...") + "  (ID: " + hospitalId + ")";
     }
 
-    // small helper to avoid HTML injection if names contain special chars
-    private static String escapeHtml(String s) {
-        if (s == null) return "";
-        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
-                .replace("\"", "&quot;").replace("'", "&#39;");
+    @Override
+    public void dispose() {
+        for (ChangeNotifier.Subscription sub : subscriptions) sub.cancel();
+        loader.close();
+        super.dispose();
     }
 }
\ No newline at end of file
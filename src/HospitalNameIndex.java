@@ -0,0 +1,265 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Hospital names for the seeker's autocomplete, answered from memory on every keystroke. Names are
+// compared like the database compares them (NameBloomFilter.normalize) and held in a prefix trie,
+// entered once from each word start so "khan" finds "Aga Khan Hospital". Every trie node keeps the
+// first few names below it (names that start with the path ahead of names where a later word does,
+// then alphabetically), so a prefix lookup is one walk down the typed characters. When nothing
+// starts with the text, the trie is walked again with an edit-distance row per node (one or two
+// typos, depending on length), cutting off branches already too far away.
+//
+// Lookups never touch the database; refresh() does, off the EDT. The first call loads every
+// hospital; after a hospitals change it reads only the ids past the highest it holds and rebuilds
+// if the table's ids then disagree with the ones held (a hospital was deleted, IdChecksum), as
+// LocationIndex does.
+public class HospitalNameIndex {
+    private static final int TOP = 8; // names kept per node, the most a lookup returns
+    private static final LatencyRecorder LATENCY = new LatencyRecorder("hospital-suggest", 1024);
+
+    public static class Match {
+        public final int id;
+        public final String name;
+        public final int distance; // edits from the text typed, 0 for a prefix match
+
+        Match(int id, String name, int distance) {
+            this.id = id;
+            this.name = name;
+            this.distance = distance;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static class Node {
+        char[] keys = new char[0]; // sorted
+        Node[] children = new Node[0];
+        int[] top = new int[0];    // the first TOP names below: id from the name start, -id from a later word
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node childOrAdd(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) return children[i];
+            i = -i - 1;
+            Node n = new Node();
+            keys = insert(keys, i, c);
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, i);
+            grown[i] = n;
+            System.arraycopy(children, i, grown, i + 1, children.length - i);
+            children = grown;
+            return n;
+        }
+    }
+
+    // One complete index; a rebuild makes a new one and swaps it in.
+    private static class Names {
+        final Node root = new Node();
+        final Map<Integer, String> display = new HashMap<>(); // id -> name as registered
+        final Map<Integer, String> keys = new HashMap<>();    // id -> normalized name
+        final Map<String, Integer> byKey = new HashMap<>();   // normalized name -> lowest id
+        final IdChecksum checksum = new IdChecksum();         // of the ids in display
+        int highId;
+
+        void add(int id, String name) {
+            if (name == null || display.containsKey(id)) return;
+            String key = NameBloomFilter.normalize(name).trim();
+            display.put(id, name);
+            checksum.add(id);
+            keys.put(id, key);
+            byKey.merge(key, id, Math::min);
+            highId = Math.max(highId, id);
+            for (int start = 0; start < key.length(); start++) {
+                if (start > 0 && key.charAt(start - 1) != ' ' || key.charAt(start) == ' ') continue;
+                int entry = start == 0 ? id : -id;
+                Node n = root;
+                offer(n, entry);
+                for (int i = start; i < key.length(); i++) {
+                    n = n.childOrAdd(key.charAt(i));
+                    offer(n, entry);
+                }
+            }
+        }
+
+        // keeps the entry in the node's top list if it sorts among the first TOP
+        private void offer(Node n, int entry) {
+            int[] top = n.top;
+            for (int t : top) if (Math.abs(t) == Math.abs(entry)) return; // the whole name, or an earlier word, got here first
+            int at = top.length;
+            while (at > 0 && ranksBefore(entry, top[at - 1])) at--;
+            if (at >= TOP) return;
+            int[] grown = new int[Math.min(TOP, top.length + 1)];
+            System.arraycopy(top, 0, grown, 0, at);
+            grown[at] = entry;
+            System.arraycopy(top, at, grown, at + 1, grown.length - at - 1);
+            n.top = grown;
+        }
+
+        boolean ranksBefore(int a, int b) {
+            if ((a > 0) != (b > 0)) return a > 0;
+            return before(Math.abs(a), Math.abs(b));
+        }
+
+        boolean before(int a, int b) {
+            int c = keys.get(a).compareTo(keys.get(b));
+            return c != 0 ? c < 0 : a < b;
+        }
+    }
+
+    // guarded by the class lock
+    private static Names names = new Names();
+    private static boolean loaded;
+    private static volatile boolean changed;
+    private static final Object REFRESH = new Object(); // one refresh at a time, lookups not blocked by it
+
+    static {
+        ChangeNotifier.subscribe(ChangeNotifier.HOSPITALS, () -> changed = true);
+        DBConnection.addShutdownTask(() -> {
+            if (Boolean.getBoolean("drop4life.poolStats")) System.out.println(stats());
+        });
+    }
+
+    // Up to limit hospitals for the text typed so far: names (or a word in them) starting with it,
+    // else names within a typo or two of it, closest first. Empty until the first refresh.
+    public static synchronized List<Match> suggest(String text, int limit) {
+        long start = System.nanoTime();
+        String typed = NameBloomFilter.normalize(text).trim();
+        List<Match> result = new ArrayList<>();
+        if (typed.isEmpty()) return result;
+
+        Node n = names.root;
+        for (int i = 0; i < typed.length() && n != null; i++) n = n.child(typed.charAt(i));
+        if (n != null) {
+            for (int entry : n.top) {
+                if (result.size() == limit) break;
+                result.add(new Match(Math.abs(entry), names.display.get(Math.abs(entry)), 0));
+            }
+        } else {
+            result = fuzzy(typed, limit);
+        }
+        LATENCY.record(System.nanoTime() - start);
+        return result;
+    }
+
+    // Id of the hospital with exactly this name (case and accents aside), or -1.
+    public static synchronized int idOf(String name) {
+        Integer id = names.byKey.get(NameBloomFilter.normalize(name).trim());
+        return id == null ? -1 : id;
+    }
+
+    // Brings the index up to date with the hospitals table; call it off the EDT.
+    public static void refresh(Connection con) throws SQLException {
+        synchronized (REFRESH) {
+            int from;
+            synchronized (HospitalNameIndex.class) {
+                if (loaded && !changed) return;
+                from = loaded ? names.highId : -1;
+            }
+            changed = false;
+            if (from < 0) {
+                rebuild(con);
+                return;
+            }
+
+            List<Object[]> added = new ArrayList<>();
+            try (PreparedStatement pst = con.prepareStatement("SELECT id, name FROM hospitals WHERE id > ? ORDER BY id")) {
+                pst.setInt(1, from);
+                try (ResultSet rs = pst.executeQuery()) {
+                    while (rs.next()) added.add(new Object[] { rs.getInt(1), rs.getString(2) });
+                }
+            }
+            IdChecksum checksum;
+            synchronized (HospitalNameIndex.class) {
+                for (Object[] row : added) names.add((Integer) row[0], (String) row[1]);
+                checksum = names.checksum; // only this thread adds to it
+            }
+            if (!checksum.matches(con, "hospitals WHERE name IS NOT NULL")) rebuild(con);
+        }
+    }
+
+    // Loads the index ahead of the first keystroke; called from the startup thread.
+    public static void warmUp() {
+        try (Connection con = DBConnection.getConnection()) {
+            refresh(con);
+        } catch (SQLException ex) {
+            System.err.println("Could not load hospital names: " + ex.getMessage());
+        }
+    }
+
+    public static synchronized String stats() {
+        return "hospital-names[hospitals=" + names.display.size()
+                + String.format(" p50=%.3fms p99=%.3fms]", LATENCY.percentileMs(50), LATENCY.percentileMs(99));
+    }
+
+    // built without the lock, so lookups keep answering from the old index meanwhile
+    private static void rebuild(Connection con) throws SQLException {
+        Names fresh = new Names();
+        try (Statement st = con.createStatement()) {
+            st.setFetchSize(Integer.MIN_VALUE); // stream
+            try (ResultSet rs = st.executeQuery("SELECT id, name FROM hospitals ORDER BY id")) {
+                while (rs.next()) fresh.add(rs.getInt(1), rs.getString(2));
+            }
+        }
+        synchronized (HospitalNameIndex.class) {
+            names = fresh;
+            loaded = true;
+        }
+    }
+
+    // Levenshtein distance from the typed text to each trie path, one row per node; a node whose
+    // last cell is within budget matches (its names start with something close to the text).
+    private static List<Match> fuzzy(String typed, int limit) {
+        int budget = typed.length() <= 3 ? 0 : typed.length() <= 6 ? 1 : 2;
+        if (budget == 0) return new ArrayList<>();
+        int[] row = new int[typed.length() + 1];
+        for (int j = 0; j < row.length; j++) row[j] = j;
+        Map<Integer, Integer> best = new HashMap<>(); // id -> fewest edits
+        for (int i = 0; i < names.root.keys.length; i++) {
+            walk(names.root.children[i], names.root.keys[i], typed, row, budget, best);
+        }
+
+        List<Match> result = new ArrayList<>(best.size());
+        for (Map.Entry<Integer, Integer> e : best.entrySet()) {
+            result.add(new Match(e.getKey(), names.display.get(e.getKey()), e.getValue()));
+        }
+        result.sort((a, b) -> a.distance != b.distance ? Integer.compare(a.distance, b.distance)
+                : names.before(a.id, b.id) ? -1 : 1);
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    private static void walk(Node n, char c, String typed, int[] prev, int budget, Map<Integer, Integer> best) {
+        int[] row = new int[prev.length];
+        row[0] = prev[0] + 1;
+        int min = row[0];
+        for (int j = 1; j < row.length; j++) {
+            int substitute = prev[j - 1] + (typed.charAt(j - 1) == c ? 0 : 1);
+            row[j] = Math.min(substitute, Math.min(prev[j], row[j - 1]) + 1);
+            min = Math.min(min, row[j]);
+        }
+        if (min > budget) return; // every longer path is at least this far off
+        int distance = row[row.length - 1];
+        if (distance <= budget) {
+            for (int entry : n.top) best.merge(Math.abs(entry), distance, Math::min);
+        }
+        for (int i = 0; i < n.keys.length; i++) walk(n.children[i], n.keys[i], typed, row, budget, best);
+    }
+
+    private static char[] insert(char[] a, int i, char c) {
+        char[] grown = new char[a.length + 1];
+        System.arraycopy(a, 0, grown, 0, i);
+        grown[i] = c;
+        System.arraycopy(a, i, grown, i + 1, a.length - i);
+        return grown;
+    }
+}
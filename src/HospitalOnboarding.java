@@ -0,0 +1,98 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+// Hospital registration: the hospital row and its eight zero-unit stock rows are written in one
+// transaction using JDBC batches. With rewriteBatchedStatements=true the driver sends each batch
+// as a multi-row INSERT, so registering many hospitals takes a handful of round trips rather than
+// nine per hospital. Activity log entries are queued on ActivityLog once the transaction commits.
+public class HospitalOnboarding {
+    private static final String HOSPITAL_SQL = "INSERT INTO hospitals (name, location, password) VALUES (?, ?, ?)";
+    private static final String STOCK_SQL = "INSERT INTO blood_stocks (hospital_id, blood_type, units) VALUES (?, ?, 0)";
+    private static final int CHUNK = 1000; // hospitals per batch, keeps packets well under max_allowed_packet
+
+    public static class Hospital {
+        final String name;
+        final String location;
+        final String password;
+
+        public Hospital(String name, String location, String password) {
+            this.name = name;
+            this.location = location;
+            this.password = password;
+        }
+    }
+
+    // Registers one hospital inside the caller's transaction and returns its id. Call committed()
+    // with the id once that transaction commits.
+    public static int register(Connection con, Hospital hospital) throws SQLException {
+        List<Hospital> one = new ArrayList<>();
+        one.add(hospital);
+        return insertChunk(con, one)[0];
+    }
+
+    // Registers many hospitals in a single transaction and returns their ids in input order.
+    public static int[] registerAll(List<Hospital> hospitals) throws SQLException {
+        int[] ids = new int[hospitals.size()];
+        try (Connection con = DBConnection.getConnection()) {
+            boolean autoCommit = con.getAutoCommit();
+            con.setAutoCommit(false);
+            boolean committed = false;
+            try {
+                for (int from = 0; from < hospitals.size(); from += CHUNK) {
+                    int to = Math.min(hospitals.size(), from + CHUNK);
+                    int[] chunkIds = insertChunk(con, hospitals.subList(from, to));
+                    System.arraycopy(chunkIds, 0, ids, from, chunkIds.length);
+                }
+                con.commit();
+                committed = true;
+                committed(ids);
+                ChangeNotifier.bump(con, ChangeNotifier.HOSPITALS, ChangeNotifier.BLOOD_STOCKS);
+                for (Hospital h : hospitals) {
+                    NameBloomFilter.added(ChangeNotifier.HOSPITALS, h.name);
+                    ActivityLog.append("New Hospital registered: " + h.name);
+                }
+            } finally {
+                if (!committed) con.rollback();
+                con.setAutoCommit(autoCommit);
+            }
+        }
+        return ids;
+    }
+
+    // the new hospitals' stock rows are known (all zero, at stock_version 0), so StockCache gets
+    // them without a query
+    public static void committed(int... ids) {
+        for (int id : ids) StockCache.store(id, 0, new int[BloodTypes.ALL.length]);
+    }
+
+    private static int[] insertChunk(Connection con, List<Hospital> hospitals) throws SQLException {
+        int[] ids = new int[hospitals.size()];
+        try (PreparedStatement pst = con.prepareStatement(HOSPITAL_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (Hospital h : hospitals) {
+                pst.setString(1, h.name);
+                pst.setString(2, h.location);
+                pst.setString(3, h.password);
+                pst.addBatch();
+            }
+            pst.executeBatch();
+            try (ResultSet rs = pst.getGeneratedKeys()) {
+                int i = 0;
+                while (rs.next() && i < ids.length) ids[i++] = rs.getInt(1);
+                if (i != ids.length) throw new SQLException("Expected " + ids.length + " generated ids, got " + i);
+            }
+        }
+
+        try (PreparedStatement pst = con.prepareStatement(STOCK_SQL)) {
+            for (int id : ids) {
+                for (String type : BloodTypes.ALL) {
+                    pst.setInt(1, id);
+                    pst.setString(2, type);
+                    pst.addBatch();
+                }
+            }
+            pst.executeBatch();
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,117 @@
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.Dimension;
+import java.awt.event.*;
+import java.util.List;
+
+// Drop-down of hospital names under a text field, filled from HospitalNameIndex as the user types
+// (memory only, so it keeps up with every keystroke). Up/Down move through the list, Enter or a
+// click picks a name, Escape closes it. A picked hospital's id is kept until the text is edited.
+public class HospitalSuggestions {
+    private static final int SHOWN = 8;
+
+    private final JTextField field;
+    private final JPopupMenu popup = new JPopupMenu();
+    private final DefaultListModel<HospitalNameIndex.Match> model = new DefaultListModel<>();
+    private final JList<HospitalNameIndex.Match> list = new JList<>(model);
+    private final JScrollPane scroll = new JScrollPane(list);
+    private int pickedId = -1;
+    private boolean picking; // the text is being set by a pick, not typed
+
+    public HospitalSuggestions(JTextField field) {
+        this.field = field;
+        list.setFocusable(false);
+        list.setFont(field.getFont());
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        popup.setFocusable(false);
+        popup.add(scroll);
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { edited(); }
+            public void removeUpdate(DocumentEvent e) { edited(); }
+            public void changedUpdate(DocumentEvent e) { }
+        });
+        field.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (!popup.isVisible()) return;
+                int size = model.getSize();
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_DOWN:
+                        move(list.getSelectedIndex() < 0 ? 0 : (list.getSelectedIndex() + 1) % size);
+                        break;
+                    case KeyEvent.VK_UP:
+                        move(list.getSelectedIndex() <= 0 ? size - 1 : list.getSelectedIndex() - 1);
+                        break;
+                    case KeyEvent.VK_ENTER:
+                        if (list.getSelectedIndex() >= 0) pick(list.getSelectedValue());
+                        break;
+                    case KeyEvent.VK_ESCAPE:
+                        popup.setVisible(false);
+                        break;
+                    default:
+                        return;
+                }
+                e.consume();
+            }
+        });
+        field.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                popup.setVisible(false);
+            }
+        });
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int i = list.locationToIndex(e.getPoint());
+                if (i >= 0) pick(model.get(i));
+            }
+        });
+    }
+
+    // Id of the hospital named in the field: the one picked, else an exact name match; -1 if neither.
+    public int hospitalId() {
+        return pickedId >= 0 ? pickedId : HospitalNameIndex.idOf(field.getText());
+    }
+
+    private void edited() {
+        if (picking) return;
+        pickedId = -1;
+        SwingUtilities.invokeLater(this::update); // the document is locked during its own events
+    }
+
+    private void update() {
+        if (!field.isShowing() || !field.hasFocus()) return;
+        List<HospitalNameIndex.Match> matches = HospitalNameIndex.suggest(field.getText(), SHOWN);
+        model.clear();
+        for (HospitalNameIndex.Match m : matches) model.addElement(m);
+        if (matches.isEmpty()) {
+            popup.setVisible(false);
+            return;
+        }
+        list.setVisibleRowCount(matches.size());
+        scroll.setPreferredSize(null);
+        scroll.setPreferredSize(new Dimension(field.getWidth(), scroll.getPreferredSize().height));
+        popup.pack();
+        popup.show(field, 0, field.getHeight());
+        field.requestFocusInWindow();
+    }
+
+    private void move(int index) {
+        list.setSelectedIndex(index);
+        list.ensureIndexIsVisible(index);
+    }
+
+    private void pick(HospitalNameIndex.Match m) {
+        picking = true;
+        try {
+            field.setText(m.name);
+        } finally {
+            picking = false;
+        }
+        pickedId = m.id;
+        popup.setVisible(false);
+    }
+}
@@ -0,0 +1,32 @@
+import java.sql.*;
+
+// The ids an in-memory index holds, reduced to their count, sum and XOR, so a catch-up can tell
+// whether the table still has exactly those rows. The count alone cannot: a delete followed by a
+// registration leaves it unchanged, while the sum and XOR both move with the ids themselves.
+// Callers add each id once and start a new checksum when they rebuild. Not thread-safe.
+public class IdChecksum {
+    private long count, sum, xor;
+
+    public void add(int id) {
+        count++;
+        sum += id;
+        xor ^= id;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    // Whether the id column of `from` (a table, optionally with a WHERE clause) matches the ids added.
+    public boolean matches(Connection con, String from) throws SQLException {
+        try (Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery(sql(from))) {
+            rs.next();
+            return rs.getLong(1) == count && rs.getLong(2) == sum && rs.getLong(3) == xor;
+        }
+    }
+
+    static String sql(String from) {
+        return "SELECT COUNT(*), COALESCE(SUM(id), 0), COALESCE(BIT_XOR(id), 0) FROM " + from;
+    }
+}
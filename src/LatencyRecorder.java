@@ -0,0 +1,40 @@
+import java.util.Arrays;
+
+// Keeps the most recent samples of an operation's latency and reports percentiles over them.
+// Cheap enough to leave on: record() is a synchronized array store.
+public class LatencyRecorder {
+    private final String name;
+    private final long[] samples;
+    private int next;
+    private long count;
+
+    public LatencyRecorder(String name, int capacity) {
+        this.name = name;
+        this.samples = new long[capacity];
+    }
+
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        count++;
+    }
+
+    // p in [0, 100]; returns milliseconds over the retained samples, or 0 when there are none.
+    public synchronized double percentileMs(double p) {
+        int n = (int) Math.min(count, samples.length);
+        if (n == 0) return 0;
+        long[] sorted = Arrays.copyOf(samples, n);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(p / 100.0 * n) - 1;
+        return sorted[Math.max(0, Math.min(n - 1, rank))] / 1_000_000.0;
+    }
+
+    public synchronized long count() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[n=%d p50=%.2fms p99=%.2fms]", name, count(), percentileMs(50), percentileMs(99));
+    }
+}
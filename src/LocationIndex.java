@@ -0,0 +1,196 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Substring search over hospital locations without a leading-wildcard LIKE. Every location is
+// split into trigrams (three-character windows), each trigram keeps the sorted ids of the hospitals
+// whose location contains it, and a search intersects the lists of the needle's trigrams, then
+// confirms the few survivors with a real contains check. Needles shorter than three characters
+// are checked against each location directly, which is still memory speed.
+//
+// Locations are compared like the database compares them (case and accent insensitive, see
+// NameBloomFilter.normalize). The index is loaded on first use. Hospitals only ever get new, higher
+// ids, so after a hospitals change it reads the rows past the highest id it holds; if the table's
+// ids then disagree with the ones held (a hospital was deleted, IdChecksum) it rebuilds. Location
+// edits made outside the app are picked up on the next rebuild.
+//
+// Searches read the index under the class lock only; the database work happens under a separate
+// refresh lock, and a rebuild fills a new index and swaps it in, as HospitalNameIndex does.
+public class LocationIndex {
+    private static class IntList {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+    }
+
+    // One complete index; a rebuild makes a new one and swaps it in.
+    private static class Locations {
+        final Map<Long, IntList> postings = new HashMap<>();
+        final Map<Integer, String> byId = new HashMap<>(); // id -> normalized location, "" if none
+        final IdChecksum checksum = new IdChecksum();
+        int highId;
+
+        // ids ascend, so the posting lists stay sorted
+        void add(int id, String location) {
+            if (byId.containsKey(id)) return;
+            String normalized = location == null ? "" : NameBloomFilter.normalize(location);
+            byId.put(id, normalized);
+            checksum.add(id);
+            highId = Math.max(highId, id);
+            for (long g : trigrams(normalized)) postings.computeIfAbsent(g, k -> new IntList()).add(id);
+        }
+    }
+
+    // guarded by the class lock
+    private static Locations index = new Locations();
+    private static boolean loaded;
+    private static volatile boolean changed;
+    private static final Object REFRESH = new Object(); // one refresh at a time, searches not blocked by it
+
+    static {
+        ChangeNotifier.subscribe(ChangeNotifier.HOSPITALS, () -> changed = true);
+        DBConnection.addShutdownTask(() -> {
+            if (Boolean.getBoolean("drop4life.poolStats")) System.out.println(stats());
+        });
+    }
+
+    // Sorted ids of the hospitals whose location contains text.
+    public static int[] matching(Connection con, String text) throws SQLException {
+        refresh(con);
+        String needle = NameBloomFilter.normalize(text).trim();
+        synchronized (LocationIndex.class) {
+            if (needle.length() < 3) return scan(needle);
+
+            Set<Long> grams = trigrams(needle);
+            IntList[] lists = new IntList[grams.size()];
+            int n = 0;
+            for (long g : grams) {
+                IntList list = index.postings.get(g);
+                if (list == null) return new int[0];
+                lists[n++] = list;
+            }
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+            int[] candidates = Arrays.copyOf(lists[0].ids, lists[0].size);
+            int count = candidates.length;
+            for (int i = 1; i < lists.length && count > 0; i++) count = intersect(candidates, count, lists[i]);
+
+            // all trigrams present does not yet mean the needle is (e.g. "abcxbcd" for "abcd")
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (index.byId.get(candidates[i]).contains(needle)) candidates[kept++] = candidates[i];
+            }
+            return Arrays.copyOf(candidates, kept);
+        }
+    }
+
+    // Loads the index ahead of the first search; called from the startup thread.
+    public static void warmUp() {
+        try (Connection con = DBConnection.getConnection()) {
+            refresh(con);
+        } catch (SQLException ex) {
+            System.err.println("Could not load the location index: " + ex.getMessage());
+        }
+    }
+
+    public static synchronized String stats() {
+        return "location-index[hospitals=" + index.byId.size() + " trigrams=" + index.postings.size() + "]";
+    }
+
+    // keeps the ids of a[0..count) that are also in list; both sorted. Returns the new count.
+    private static int intersect(int[] a, int count, IntList list) {
+        int kept = 0;
+        if (count * 16 < list.size) { // few candidates against a common trigram: probe instead of walking it
+            for (int i = 0; i < count; i++) {
+                if (Arrays.binarySearch(list.ids, 0, list.size, a[i]) >= 0) a[kept++] = a[i];
+            }
+            return kept;
+        }
+        int i = 0, j = 0;
+        while (i < count && j < list.size) {
+            if (a[i] < list.ids[j]) i++;
+            else if (a[i] > list.ids[j]) j++;
+            else {
+                a[kept++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return kept;
+    }
+
+    private static int[] scan(String needle) {
+        int[] ids = new int[index.byId.size()];
+        int n = 0;
+        for (Map.Entry<Integer, String> e : index.byId.entrySet()) {
+            if (e.getValue().contains(needle)) ids[n++] = e.getKey();
+        }
+        ids = Arrays.copyOf(ids, n);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    // Brings the index up to date with the hospitals table: new registrations since the last look,
+    // or a rebuild on the first call and after a delete.
+    private static void refresh(Connection con) throws SQLException {
+        synchronized (REFRESH) {
+            int from;
+            synchronized (LocationIndex.class) {
+                if (loaded && !changed) return;
+                from = loaded ? index.highId : -1;
+            }
+            changed = false; // changes landing during the read mark it changed again
+            if (from < 0) {
+                rebuild(con);
+                return;
+            }
+
+            List<Object[]> added = new ArrayList<>();
+            try (PreparedStatement pst = con.prepareStatement("SELECT id, location FROM hospitals WHERE id > ? ORDER BY id")) {
+                pst.setInt(1, from);
+                try (ResultSet rs = pst.executeQuery()) {
+                    while (rs.next()) added.add(new Object[] { rs.getInt(1), rs.getString(2) });
+                }
+            }
+            IdChecksum checksum;
+            synchronized (LocationIndex.class) {
+                for (Object[] row : added) index.add((Integer) row[0], (String) row[1]);
+                checksum = index.checksum; // only this thread adds to it
+            }
+            if (!checksum.matches(con, "hospitals")) rebuild(con);
+        }
+    }
+
+    // built without the lock, so searches keep answering from the old index meanwhile; a failed
+    // read leaves the old index in place
+    private static void rebuild(Connection con) throws SQLException {
+        Locations fresh = new Locations();
+        try (Statement st = con.createStatement()) {
+            st.setFetchSize(Integer.MIN_VALUE); // stream
+            try (ResultSet rs = st.executeQuery("SELECT id, location FROM hospitals ORDER BY id")) {
+                while (rs.next()) fresh.add(rs.getInt(1), rs.getString(2));
+            }
+        }
+        synchronized (LocationIndex.class) {
+            index = fresh;
+            loaded = true;
+        }
+    }
+
+    // distinct trigrams, three 16-bit chars packed into a long
+    private static Set<Long> trigrams(String s) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= s.length(); i++) {
+            grams.add(((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2));
+        }
+        return grams;
+    }
+}
@@ -18,6 +18,7 @@ public class LoginFrame extends JFrame implements ActionListener {
     private JPasswordField passwordField;
     private JButton loginButton, registerButton;
     private JLabel registerHintLabel; // message shown below login when user not registered
+    private final DataLoader loader = new DataLoader();
 
     public LoginFrame() {
         setTitle("DROP4LIFE - Login");
@@ -146,13 +147,7 @@ public class LoginFrame extends JFrame implements ActionListener {
         footer.setForeground(new Color(120, 120, 120));
         add(footer, BorderLayout.SOUTH);
 
-        // listeners: check registration status when username field loses focus or role changes
-        usernameField.addFocusListener(new FocusAdapter() {
-            @Override
-            public void focusLost(FocusEvent e) {
-                checkRegistrationHint();
-            }
-        });
+        // check registration status when the role changes (focus loss is handled above)
         roleCombo.addActionListener(e -> checkRegistrationHint());
 
         setLocationRelativeTo(null);
@@ -179,29 +174,36 @@ public class LoginFrame extends JFrame implements ActionListener {
             registerHintLabel.setVisible(false);
             return;
         }
-        boolean exists = isUserRegistered(role, username.trim());
-        if (!exists) {
-            registerHintLabel.setText("<html><u>Not registered? Click here to create a " + role + " account.</u></html>");
-            registerHintLabel.setVisible(true);
-        } else {
-            registerHintLabel.setVisible(false);
+        String name = username.trim();
+        String table = getTableForRole(role);
+        NameBloomFilter.Answer filtered = NameBloomFilter.lookup(table, name);
+        if (filtered == NameBloomFilter.Answer.ABSENT) { // definitely not registered, no query needed
+            loader.cancel("hint");
+            showRegisterHint();
+            return;
         }
+        // latest-wins, so typing and switching roles quickly never piles up lookups
+        loader.load("hint", con -> isUserRegistered(con, role, name, filtered), exists -> {
+            if (!exists) showRegisterHint();
+            else registerHintLabel.setVisible(false);
+        });
     }
 
-    private boolean isUserRegistered(String role, String username) {
+    // filtered: what the name filter said; only its MAYBEs count as false positives
+    private boolean isUserRegistered(Connection con, String role, String username,
+                                     NameBloomFilter.Answer filtered) throws SQLException {
         String table = getTableForRole(role);
         if (table == null) return false;
         String column = getUsernameColumn(role);
         String query = "SELECT 1 FROM " + table + " WHERE " + column + " = ? LIMIT 1";
-        try (Connection con = DBConnection.getConnection();
-             PreparedStatement pst = con.prepareStatement(query)) {
+        try (PreparedStatement pst = con.prepareStatement(query)) {
             pst.setString(1, username);
-            ResultSet rs = pst.executeQuery();
-            return rs.next();
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            return false;
+            try (ResultSet rs = pst.executeQuery()) {
+                if (rs.next()) return true;
+            }
         }
+        if (filtered == NameBloomFilter.Answer.MAYBE) NameBloomFilter.falsePositive(table);
+        return false;
     }
 
     @Override
@@ -211,13 +213,21 @@ public class LoginFrame extends JFrame implements ActionListener {
             String username = usernameField.getText();
             String password = new String(passwordField.getPassword());
 
-            if (authenticate(role, username, password)) {
-                dispose();
-                openDashboard(role, username);
-            } else {
-                JOptionPane.showMessageDialog(this, "Invalid credentials!");
-                checkRegistrationHint(); // update hint after failed login
-            }
+            loginButton.setEnabled(false);
+            loader.execute(con -> LoginService.login(con, role, username, password), session -> {
+                loginButton.setEnabled(true);
+                if (session != null) {
+                    dispose();
+                    openDashboard(session);
+                } else {
+                    JOptionPane.showMessageDialog(this, "Invalid credentials!");
+                    checkRegistrationHint(); // update hint after failed login
+                }
+            }, ex -> {
+                loginButton.setEnabled(true);
+                ex.printStackTrace();
+                JOptionPane.showMessageDialog(this, "Login failed: " + ex.getMessage());
+            });
         } else if (e.getSource() == registerButton) {
             String role = (String) roleCombo.getSelectedItem();
             if (role.equals("Admin")) {
@@ -228,23 +238,6 @@ public class LoginFrame extends JFrame implements ActionListener {
         }
     }
 
-    private boolean authenticate(String role, String username, String password) {
-        String table = getTableForRole(role);
-        if (table == null) return false;
-
-        String query = "SELECT * FROM " + table + " WHERE " + getUsernameColumn(role) + " = ? AND password = ?";
-        try (Connection con = DBConnection.getConnection();
-             PreparedStatement pst = con.prepareStatement(query)) {
-            pst.setString(1, username);
-            pst.setString(2, password);
-            ResultSet rs = pst.executeQuery();
-            return rs.next();
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            return false;
-        }
-    }
-
     private String getTableForRole(String role) {
         switch (role) {
             case "Admin": return "admins";
@@ -259,28 +252,15 @@ public class LoginFrame extends JFrame implements ActionListener {
         return role.equals("Admin") ? "admin_id" : "name";
     }
 
-    private void openDashboard(String role, String username) {
-        switch (role) {
-            case "Admin": new AdminDashboard(); break;
-            case "Donor": new DonorDashboard(getUserId("donors", username)); break;
-            case "Hospital": new HospitalDashboard(getUserId("hospitals", username)); break;
-            case "Seeker": new SeekerDashboard(getUserId("seekers", username)); break;
+    private void openDashboard(Session session) {
+        switch (session.role) {
+            case Session.ADMIN: new AdminDashboard(); break;
+            case Session.DONOR: new DonorDashboard(session); break;
+            case Session.HOSPITAL: new HospitalDashboard(session); break;
+            case Session.SEEKER: new SeekerDashboard(session); break;
         }
     }
 
-    private int getUserId(String table, String username) {
-        String query = "SELECT id FROM " + table + " WHERE name = ?";
-        try (Connection con = DBConnection.getConnection();
-             PreparedStatement pst = con.prepareStatement(query)) {
-            pst.setString(1, username);
-            ResultSet rs = pst.executeQuery();
-            if (rs.next()) return rs.getInt("id");
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-        }
-        return -1;
-    }
-
     // add this helper method near other private methods in the same class
     private void showRegisterHint() {
         String role = (String) roleCombo.getSelectedItem();
@@ -291,4 +271,10 @@ public class LoginFrame extends JFrame implements ActionListener {
         registerHintLabel.setText("<html><u>Not registered? Click here to create a " + role + " account.</u></html>");
         registerHintLabel.setVisible(true);
     }
+
+    @Override
+    public void dispose() {
+        loader.close();
+        super.dispose();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+import java.sql.*;
+
+// Login in one round trip: the credential check selects the id and the profile fields the
+// dashboards show, so there is no follow-up lookup by name. Latency of every attempt is recorded;
+// run with -Ddrop4life.poolStats=true to print p50/p99 at exit.
+public class LoginService {
+    private static final LatencyRecorder LATENCY = new LatencyRecorder("login", 1024);
+
+    static {
+        DBConnection.addShutdownTask(() -> {
+            if (Boolean.getBoolean("drop4life.poolStats")) System.out.println(LATENCY);
+        });
+    }
+
+    // Returns the session for matching credentials, or null if they do not match.
+    public static Session login(Connection con, String role, String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            try (PreparedStatement pst = con.prepareStatement(loginSql(role))) {
+                pst.setString(1, username);
+                pst.setString(2, password);
+                try (ResultSet rs = pst.executeQuery()) {
+                    if (!rs.next()) return null;
+                    Session session = read(role, rs);
+                    ReferenceData.remember(session);
+                    return session;
+                }
+            }
+        } finally {
+            LATENCY.record(System.nanoTime() - start);
+        }
+    }
+
+    // Loads the session of a known user id, e.g. when a dashboard was opened with only an id.
+    public static Session load(Connection con, String role, int id) throws SQLException {
+        try (PreparedStatement pst = con.prepareStatement(select(role) + " WHERE id = ?")) {
+            pst.setInt(1, id);
+            try (ResultSet rs = pst.executeQuery()) {
+                return rs.next() ? read(role, rs) : null;
+            }
+        }
+    }
+
+    // parameters: user name (admin id for admins), password; also checked by QueryPlanCheck
+    static String loginSql(String role) {
+        String keyColumn = Session.ADMIN.equals(role) ? "admin_id" : "name";
+        return select(role) + " WHERE " + keyColumn + " = ? AND password = ? LIMIT 1";
+    }
+
+    public static LatencyRecorder latency() {
+        return LATENCY;
+    }
+
+    private static String select(String role) {
+        switch (role) {
+            case Session.ADMIN: return "SELECT 0, admin_id, NULL, NULL FROM admins";
+            case Session.DONOR: return "SELECT id, name, blood_type, location FROM donors";
+            case Session.HOSPITAL: return "SELECT id, name, NULL, location FROM hospitals";
+            case Session.SEEKER: return "SELECT id, name, blood_type_needed, location FROM seekers";
+            default: throw new IllegalArgumentException("Unknown role: " + role);
+        }
+    }
+
+    private static Session read(String role, ResultSet rs) throws SQLException {
+        return new Session(role, rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4));
+    }
+}
@@ -1,5 +1,25 @@
+import javax.swing.JOptionPane;
+import java.sql.SQLException;
+
 public class Main {
     public static void main(String[] args) {
+        DBConnection.warmUp(); // start filling the connection pool while the login screen builds
+        // schema first: a single version check once the database is current
+        try {
+            MigrationRunner.ensureMigrated();
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(null, "Could not update the database schema: " + ex.getMessage());
+        }
+        // in-memory lookups used by the login hint and the dashboards, filled off the EDT
+        Thread startup = new Thread(() -> {
+            NameBloomFilter.buildAll();
+            ReferenceData.warmUp();
+            LocationIndex.warmUp();
+            HospitalNameIndex.warmUp();
+        }, "drop4life-startup");
+        startup.setDaemon(true);
+        startup.start();
         new LoginFrame();
     }
-}
\ No newline at end of file
+}
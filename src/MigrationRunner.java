@@ -0,0 +1,337 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Owns the database schema. Migrations are numbered and run once each, in order; applied versions
+// are recorded in schema_version. Main runs them at startup, and code that depends on a migrated
+// column calls ensureMigrated(), which is a volatile read once that has happened. A named MySQL
+// lock keeps two clients starting together from migrating at the same time.
+//
+// Databases created before this runner existed already hold some of what the early migrations
+// add (the tables themselves, and the columns and keys earlier versions added on first use), so
+// every step checks before it changes anything and is safe to run against any such database.
+public class MigrationRunner {
+    private static final String LOCK_NAME = "drop4life_migrations";
+    private static final int LOCK_TIMEOUT_SEC = 60;
+
+    // name of the unique key the stock upserts rely on
+    static final String STOCK_KEY = "uq_blood_stocks_hospital_type";
+
+    private interface Step {
+        void apply(Connection con) throws SQLException;
+    }
+
+    private static class Migration {
+        final int version;
+        final String description;
+        final Step step;
+
+        Migration(int version, String description, Step step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+    }
+
+    private static final List<Migration> MIGRATIONS = new ArrayList<>();
+
+    static {
+        add(1, "base tables", MigrationRunner::createBaseTables);
+        add(2, "change_versions", con -> execute(con,
+                "CREATE TABLE IF NOT EXISTS change_versions ("
+                + "entity VARCHAR(64) NOT NULL PRIMARY KEY, "
+                + "version BIGINT NOT NULL DEFAULT 0)"));
+        add(3, "unique key on blood_stocks (hospital_id, blood_type)", MigrationRunner::addStockKey);
+        add(4, "donor_requests.request_date and status", MigrationRunner::normalizeDonorRequests);
+        add(5, "indexes for the dashboard queries", MigrationRunner::addLookupIndexes);
+        add(6, "donors.next_eligible_date", MigrationRunner::addNextEligibleDate);
+        add(7, "requests.updated_at", MigrationRunner::addRequestUpdatedAt);
+        add(8, "latitude/longitude on hospitals and donors", MigrationRunner::addCoordinates);
+        add(9, "indexes for the user browser sorts", MigrationRunner::addSortIndexes);
+        add(10, "donors.updated_at", MigrationRunner::addDonorUpdatedAt);
+        add(11, "hospitals.stock_version and stock_updated_at", MigrationRunner::addStockVersion);
+    }
+
+    private static volatile boolean migrated;
+
+    private static void add(int version, String description, Step step) {
+        MIGRATIONS.add(new Migration(version, description, step));
+    }
+
+    public static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+    }
+
+    // Brings the database up to the latest version. DDL commits implicitly in MySQL, so this runs on
+    // its own connection. Main calls it before any screen opens, so later calls return at once on
+    // the volatile read without taking the lock; a first call from inside an open transaction could
+    // wait on that transaction's own locks.
+    public static void ensureMigrated() throws SQLException {
+        if (migrated) return;
+        synchronized (MigrationRunner.class) {
+            if (migrated) return;
+            try (Connection con = DBConnection.getConnection()) {
+                acquireLock(con);
+                try {
+                    execute(con, "CREATE TABLE IF NOT EXISTS schema_version ("
+                            + "version INT NOT NULL PRIMARY KEY, "
+                            + "description VARCHAR(200) NOT NULL, "
+                            + "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+                    int current = currentVersion(con);
+                    if (current > latestVersion()) {
+                        System.err.println("Database schema is at version " + current
+                                + ", newer than this build knows (" + latestVersion() + ")");
+                    }
+                    for (Migration m : MIGRATIONS) {
+                        if (m.version <= current) continue;
+                        long start = System.nanoTime();
+                        m.step.apply(con);
+                        SchemaCache.invalidate();
+                        try (PreparedStatement pst = con.prepareStatement(
+                                "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                            pst.setInt(1, m.version);
+                            pst.setString(2, m.description);
+                            pst.executeUpdate();
+                        }
+                        System.out.printf("Schema migration %d (%s) applied in %d ms%n",
+                                m.version, m.description, (System.nanoTime() - start) / 1_000_000);
+                    }
+                } finally {
+                    releaseLock(con);
+                }
+            }
+            migrated = true;
+        }
+    }
+
+    // highest applied version, 0 for a database never migrated
+    public static int currentVersion(Connection con) throws SQLException {
+        try (Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static void acquireLock(Connection con) throws SQLException {
+        try (PreparedStatement pst = con.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            pst.setString(1, LOCK_NAME);
+            pst.setInt(2, LOCK_TIMEOUT_SEC);
+            try (ResultSet rs = pst.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for another client to finish migrating the schema");
+                }
+            }
+        }
+    }
+
+    private static void releaseLock(Connection con) {
+        try (PreparedStatement pst = con.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            pst.setString(1, LOCK_NAME);
+            pst.executeQuery().close();
+        } catch (SQLException ex) {
+            ex.printStackTrace(); // the lock goes with the session anyway
+        }
+    }
+
+    // ---- migrations ----
+
+    // The schema the application was first written against. IF NOT EXISTS leaves existing
+    // databases alone; later migrations bring both kinds of database to the same shape.
+    private static void createBaseTables(Connection con) throws SQLException {
+        execute(con, "CREATE TABLE IF NOT EXISTS admins ("
+                + "admin_id VARCHAR(100) NOT NULL PRIMARY KEY, "
+                + "password VARCHAR(255) NOT NULL)");
+        execute(con, "CREATE TABLE IF NOT EXISTS donors ("
+                + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "name VARCHAR(100) NOT NULL, "
+                + "age INT, "
+                + "blood_type VARCHAR(3), "
+                + "contact_info VARCHAR(100), "
+                + "location VARCHAR(100), "
+                + "password VARCHAR(255))");
+        execute(con, "CREATE TABLE IF NOT EXISTS hospitals ("
+                + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "name VARCHAR(100) NOT NULL, "
+                + "location VARCHAR(100), "
+                + "password VARCHAR(255))");
+        execute(con, "CREATE TABLE IF NOT EXISTS seekers ("
+                + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "name VARCHAR(100) NOT NULL, "
+                + "age INT, "
+                + "blood_type_needed VARCHAR(3), "
+                + "contact_info VARCHAR(100), "
+                + "location VARCHAR(100), "
+                + "password VARCHAR(255))");
+        execute(con, "CREATE TABLE IF NOT EXISTS blood_stocks ("
+                + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "hospital_id INT NOT NULL, "
+                + "blood_type VARCHAR(3) NOT NULL, "
+                + "units INT NOT NULL DEFAULT 0, "
+                + "FOREIGN KEY (hospital_id) REFERENCES hospitals(id))");
+        execute(con, "CREATE TABLE IF NOT EXISTS requests ("
+                + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "seeker_id INT, "
+                + "hospital_id INT, "
+                + "details TEXT, "
+                + "status VARCHAR(20) DEFAULT 'Pending', "
+                + "request_date DATETIME)");
+        execute(con, "CREATE TABLE IF NOT EXISTS donor_requests ("
+                + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "hospital_id INT, "
+                + "donor_id INT, "
+                + "details TEXT, "
+                + "status VARCHAR(20), "
+                + "request_date DATETIME)");
+        execute(con, "CREATE TABLE IF NOT EXISTS donation_history ("
+                + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "donor_id INT, "
+                + "hospital_id INT, "
+                + "details TEXT, "
+                + "donation_date DATETIME)");
+        execute(con, "CREATE TABLE IF NOT EXISTS activity_logs ("
+                + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "description TEXT, "
+                + "log_date DATETIME)");
+    }
+
+    // The upserts in StockAdjuster need this key. Older databases may hold duplicate rows, which
+    // are merged into the oldest one first.
+    private static void addStockKey(Connection con) throws SQLException {
+        if (hasIndex(con, "blood_stocks", STOCK_KEY)) return;
+        if (SchemaCache.hasColumn(con, "blood_stocks", "id")) {
+            execute(con, "UPDATE blood_stocks b JOIN (SELECT MIN(id) AS keep_id, SUM(units) AS total " +
+                    "FROM blood_stocks GROUP BY hospital_id, blood_type HAVING COUNT(*) > 1) d " +
+                    "ON b.id = d.keep_id SET b.units = d.total");
+            execute(con, "DELETE b FROM blood_stocks b JOIN (SELECT hospital_id, blood_type, MIN(id) AS keep_id " +
+                    "FROM blood_stocks GROUP BY hospital_id, blood_type HAVING COUNT(*) > 1) d " +
+                    "ON b.hospital_id = d.hospital_id AND b.blood_type = d.blood_type AND b.id <> d.keep_id");
+        }
+        execute(con, "ALTER TABLE blood_stocks ADD UNIQUE KEY " + STOCK_KEY + " (hospital_id, blood_type)");
+    }
+
+    // Some early databases named the donor_requests timestamp differently or had no status column.
+    // Give every database request_date (copied from the old column) and status, so the queries
+    // no longer have to guess.
+    private static void normalizeDonorRequests(Connection con) throws SQLException {
+        Set<String> cols = SchemaCache.columns(con, "donor_requests");
+        if (!cols.contains("request_date")) {
+            execute(con, "ALTER TABLE donor_requests ADD COLUMN request_date DATETIME NULL");
+            for (String legacy : new String[] { "created_at", "created", "timestamp", "createdon", "createdat" }) {
+                if (cols.contains(legacy)) {
+                    execute(con, "UPDATE donor_requests SET request_date = `" + legacy + "`");
+                    break;
+                }
+            }
+        }
+        if (!cols.contains("status")) execute(con, "ALTER TABLE donor_requests ADD COLUMN status VARCHAR(20) NULL");
+        SchemaCache.invalidate("donor_requests");
+    }
+
+    // One index per access path the screens use (see QueryPlanCheck). Secondary indexes carry the
+    // primary key, so the name indexes also serve the (name, id) keyset paging.
+    private static void addLookupIndexes(Connection con) throws SQLException {
+        addIndex(con, "donor_requests", "idx_donor_requests_donor", "donor_id, status, request_date");
+        addIndex(con, "requests", "idx_requests_hospital_date", "hospital_id, request_date");
+        addIndex(con, "requests", "idx_requests_seeker_date", "seeker_id, request_date");
+        addIndex(con, "donation_history", "idx_donation_history_donor", "donor_id, donation_date");
+        addIndex(con, "activity_logs", "idx_activity_logs_date", "log_date");
+        addIndex(con, "donors", "idx_donors_name", "name");
+        addIndex(con, "hospitals", "idx_hospitals_name", "name");
+        addIndex(con, "seekers", "idx_seekers_name", "name");
+    }
+
+    // Backfilled from donation_history; that is the last full history scan EligibilityIndex needs.
+    private static void addNextEligibleDate(Connection con) throws SQLException {
+        String column = EligibilityIndex.COLUMN;
+        if (!SchemaCache.hasColumn(con, "donors", column)) {
+            execute(con, "ALTER TABLE donors ADD COLUMN " + column + " DATE NULL");
+            execute(con, "UPDATE donors d JOIN (SELECT donor_id, MAX(donation_date) AS last_date " +
+                    "FROM donation_history GROUP BY donor_id) h ON h.donor_id = d.id " +
+                    "SET d." + column + " = DATE_ADD(DATE(h.last_date), INTERVAL " +
+                    AcceptDonation.MONTHS_BETWEEN_DONATIONS + " MONTH)");
+            SchemaCache.invalidate("donors");
+        }
+        addIndex(con, "donors", "idx_donors_next_eligible", column);
+    }
+
+    // Maintained by MySQL on every insert and update, for RequestSync. Existing rows get the
+    // current time, so the first sync reads them once and later syncs skip them.
+    private static void addRequestUpdatedAt(Connection con) throws SQLException {
+        if (!SchemaCache.hasColumn(con, "requests", "updated_at")) {
+            execute(con, "ALTER TABLE requests ADD COLUMN updated_at TIMESTAMP(3) NOT NULL " +
+                    "DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)");
+            SchemaCache.invalidate("requests");
+        }
+        addIndex(con, "requests", "idx_requests_hospital_updated", "hospital_id, updated_at");
+        addIndex(con, "requests", "idx_requests_seeker_updated", "seeker_id, updated_at");
+    }
+
+    // Filled from the gazetteer by GeoIndex; NULL until resolved, or when the location names no known place.
+    private static void addCoordinates(Connection con) throws SQLException {
+        for (String table : new String[] { "hospitals", "donors" }) {
+            if (!SchemaCache.hasColumn(con, table, "latitude")) {
+                execute(con, "ALTER TABLE " + table + " ADD COLUMN latitude DOUBLE NULL, ADD COLUMN longitude DOUBLE NULL");
+                SchemaCache.invalidate(table);
+            }
+        }
+    }
+
+    // UserBrowser pages by (sort column, id) for each sort it offers; without these the blood type
+    // and location sorts filesort the whole table for every page.
+    private static void addSortIndexes(Connection con) throws SQLException {
+        addIndex(con, "donors", "idx_donors_blood_type", "blood_type, id");
+        addIndex(con, "donors", "idx_donors_location", "location, id");
+        addIndex(con, "seekers", "idx_seekers_blood_type", "blood_type_needed, id");
+        addIndex(con, "seekers", "idx_seekers_location", "location, id");
+        addIndex(con, "hospitals", "idx_hospitals_location", "location, id");
+    }
+
+    // Maintained by MySQL, for the donor indexes' catch-up (DonorChanges). Existing rows get the
+    // current time, so each client's first catch-up after this reads them once.
+    private static void addDonorUpdatedAt(Connection con) throws SQLException {
+        if (!SchemaCache.hasColumn(con, "donors", "updated_at")) {
+            execute(con, "ALTER TABLE donors ADD COLUMN updated_at TIMESTAMP(3) NOT NULL " +
+                    "DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)");
+            SchemaCache.invalidate("donors");
+        }
+        addIndex(con, "donors", "idx_donors_updated", "updated_at");
+    }
+
+    // Bumped and stamped by every stock write (StockCache.touch), so a client can tell which
+    // hospitals' cached stock another client changed.
+    private static void addStockVersion(Connection con) throws SQLException {
+        if (!SchemaCache.hasColumn(con, "hospitals", "stock_version")) {
+            execute(con, "ALTER TABLE hospitals ADD COLUMN stock_version BIGINT NOT NULL DEFAULT 0, " +
+                    "ADD COLUMN stock_updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)");
+            SchemaCache.invalidate("hospitals");
+        }
+        addIndex(con, "hospitals", "idx_hospitals_stock_updated", "stock_updated_at");
+    }
+
+    // ---- helpers ----
+
+    private static void execute(Connection con, String sql) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute(sql);
+        }
+    }
+
+    private static void addIndex(Connection con, String table, String name, String columns) throws SQLException {
+        if (hasIndex(con, table, name)) return;
+        execute(con, "ALTER TABLE " + table + " ADD INDEX " + name + " (" + columns + ")");
+    }
+
+    private static boolean hasIndex(Connection con, String table, String name) throws SQLException {
+        try (PreparedStatement pst = con.prepareStatement(
+                "SELECT 1 FROM information_schema.statistics WHERE table_schema = DATABASE() " +
+                "AND table_name = ? AND index_name = ? LIMIT 1")) {
+            pst.setString(1, table);
+            pst.setString(2, name);
+            try (ResultSet rs = pst.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.text.Normalizer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-memory Bloom filter of user names, one per role table, so "is this name registered?" can be
+// answered without MySQL when the answer is no. A "maybe" still has to be confirmed with a query.
+// Filters are built in the background at startup and fed by every registration; until a table's
+// filter is ready every name is a "maybe". Names are never removed: a deleted user only costs an
+// extra query, never a wrong answer.
+public class NameBloomFilter {
+    private static final double TARGET_FPP = Double.parseDouble(DBConnection.getSetting("bloom.fpp", "0.01"));
+    private static final String[] TABLES = {"donors", "hospitals", "seekers"};
+    private static final Map<String, NameBloomFilter> FILTERS = new ConcurrentHashMap<>();
+
+    static {
+        DBConnection.addShutdownTask(() -> {
+            if (Boolean.getBoolean("drop4life.poolStats")) System.out.println(stats());
+        });
+    }
+
+    private final String table;
+    private final long[] words;
+    private final int bits;
+    private final int hashes;
+    private volatile boolean ready;
+
+    private final AtomicLong inserted = new AtomicLong();
+    private final AtomicLong negatives = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    // Sized for `capacity` names at the target false-positive rate.
+    NameBloomFilter(String table, long capacity, double fpp) {
+        long m = (long) Math.ceil(-capacity * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        m = Math.max(1024, Math.min(m, Integer.MAX_VALUE - 63));
+        this.table = table;
+        this.bits = (int) m;
+        this.words = new long[(bits + 63) / 64];
+        this.hashes = Math.max(1, (int) Math.round((double) m / capacity * Math.log(2)));
+    }
+
+    // Builds the filters of all role tables on the calling thread; call it off the EDT.
+    public static void buildAll() {
+        for (String table : TABLES) {
+            try {
+                build(table);
+            } catch (SQLException ex) {
+                System.err.println("Could not build name filter for " + table + ": " + ex.getMessage());
+            }
+        }
+    }
+
+    private static void build(String table) throws SQLException {
+        try (Connection con = DBConnection.getConnection()) {
+            long count;
+            try (Statement st = con.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM " + table)) {
+                rs.next();
+                count = rs.getLong(1);
+            }
+            // room to double before the false-positive rate drifts past the target
+            NameBloomFilter filter = new NameBloomFilter(table, Math.max(1000, count * 2), TARGET_FPP);
+            // published before the scan so registrations during the scan land in it too
+            FILTERS.put(table, filter);
+            try (Statement st = con.createStatement()) {
+                st.setFetchSize(Integer.MIN_VALUE); // stream names instead of buffering the table
+                try (ResultSet rs = st.executeQuery("SELECT name FROM " + table)) {
+                    while (rs.next()) filter.add(rs.getString(1));
+                }
+            }
+            filter.ready = true;
+        }
+    }
+
+    // What a filter can say about a name. UNKNOWN (the filter is not built yet) must be confirmed
+    // with a query like MAYBE, but a "no" from the database then says nothing about the filter.
+    public enum Answer { ABSENT, MAYBE, UNKNOWN }
+
+    // ABSENT means the name is definitely not registered in table.
+    public static Answer lookup(String table, String name) {
+        NameBloomFilter filter = FILTERS.get(table);
+        if (filter == null || !filter.ready) return Answer.UNKNOWN;
+        if (filter.mightContain(name)) return Answer.MAYBE;
+        filter.negatives.incrementAndGet();
+        return Answer.ABSENT;
+    }
+
+    // Call after a registration or rename commits.
+    public static void added(String table, String name) {
+        NameBloomFilter filter = FILTERS.get(table);
+        if (filter != null) filter.add(name);
+    }
+
+    // Call when the database said no to a name lookup() answered MAYBE for, to track the real rate.
+    public static void falsePositive(String table) {
+        NameBloomFilter filter = FILTERS.get(table);
+        if (filter != null) filter.falsePositives.incrementAndGet();
+    }
+
+    public static String stats() {
+        StringBuilder sb = new StringBuilder("name-filter");
+        for (String table : TABLES) {
+            NameBloomFilter f = FILTERS.get(table);
+            sb.append(' ').append(f == null ? table + "[not built]" : f.toString());
+        }
+        return sb.toString();
+    }
+
+    void add(String name) {
+        if (name == null) return;
+        long h = hash(name);
+        int h1 = (int) h, h2 = (int) (h >>> 32);
+        synchronized (words) {
+            for (int i = 0; i < hashes; i++) {
+                int bit = index(h1, h2, i);
+                words[bit >>> 6] |= 1L << bit;
+            }
+        }
+        inserted.incrementAndGet();
+    }
+
+    boolean mightContain(String name) {
+        if (name == null) return false;
+        long h = hash(name);
+        int h1 = (int) h, h2 = (int) (h >>> 32);
+        synchronized (words) {
+            for (int i = 0; i < hashes; i++) {
+                int bit = index(h1, h2, i);
+                if ((words[bit >>> 6] & (1L << bit)) == 0) return false;
+            }
+        }
+        return true;
+    }
+
+    // false-positive rate expected for the names inserted so far
+    double expectedFpp() {
+        return Math.pow(1 - Math.exp(-(double) hashes * inserted.get() / bits), hashes);
+    }
+
+    // share of absent names that still went to the database
+    double observedFpp() {
+        long fp = falsePositives.get(), total = fp + negatives.get();
+        return total == 0 ? 0 : (double) fp / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[n=%d bits=%d (%d KiB) k=%d expectedFpp=%.4f%% observedFpp=%.4f%% localNo=%d falsePositives=%d%s]",
+                table, inserted.get(), bits, words.length * 8L / 1024, hashes, expectedFpp() * 100, observedFpp() * 100,
+                negatives.get(), falsePositives.get(), ready ? "" : " building");
+    }
+
+    // double hashing: bit i = h1 + i * h2 (Kirsch and Mitzenmacher)
+    private int index(int h1, int h2, int i) {
+        int combined = h1 + i * h2;
+        return (combined & Integer.MAX_VALUE) % bits;
+    }
+
+    private static long hash(String name) {
+        // 64-bit FNV-1a over the normalized UTF-8 bytes, then a final avalanche mix
+        long h = 0xcbf29ce484222325L;
+        for (byte b : normalize(name).getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // MySQL's default collations compare names ignoring case, accents and trailing spaces, so the
+    // filter must treat those spellings as one name or it would answer "no" for a registered user.
+    static String normalize(String name) {
+        String s = Normalizer.normalize(name, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        int end = s.length();
+        while (end > 0 && s.charAt(end - 1) == ' ') end--;
+        return s.substring(0, end).toLowerCase(java.util.Locale.ROOT);
+    }
+}
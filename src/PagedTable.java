@@ -0,0 +1,294 @@
+import javax.swing.*;
+import javax.swing.table.TableCellRenderer;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// A JTable that loads its rows a page at a time from a PageSource as the user scrolls, so only
+// what has been scrolled into view is ever fetched or held. Rows are plain values drawn by the
+// table's shared renderers; there are no per-row components. Pages are fetched on the owner's
+// DataLoader, keyed by channel, so a reload cancels the page still in flight.
+//
+// Sorting is done by the database: a header click picks the column's SQL expression, and the
+// source builds its ORDER BY and keyset condition from the Page it is given. Views whose rows are
+// already held locally (delta-synced data) can use setRows instead and are sorted in memory.
+public class PagedTable extends JPanel {
+    public interface PageSource {
+        // Up to page.limit rows following the last row shown, or the first rows on the first page.
+        // Element 0 of every returned array is the row's key and is not displayed.
+        List<Object[]> fetch(Connection con, Page page) throws SQLException;
+    }
+
+    // Where the next page starts and how the table is sorted. Sources that never enable sorting
+    // can use after/orderBy with just their key.
+    public static class Page {
+        public final Object afterKey;   // null on the first page
+        public final Object[] afterRow; // displayed values of the last row shown
+        public final int limit;
+        public final boolean ascending;
+        private final String sortExpr;  // null when sorted by key only
+        private final int sortColumn;
+
+        Page(Object afterKey, Object[] afterRow, int limit, String sortExpr, int sortColumn, boolean ascending) {
+            this.afterKey = afterKey;
+            this.afterRow = afterRow;
+            this.limit = limit;
+            this.sortExpr = sortExpr;
+            this.sortColumn = sortColumn;
+            this.ascending = ascending;
+        }
+
+        public boolean isFirst() {
+            return afterKey == null;
+        }
+
+        private Object afterSortValue() {
+            return afterRow[sortColumn];
+        }
+
+        // " AND (...)" restricting to rows after the last one shown, or "" on the first page.
+        // MySQL sorts NULLs first ascending and last descending; the conditions follow that.
+        public String after(String keyExpr) {
+            if (isFirst()) return "";
+            String cmp = ascending ? " > ?" : " < ?";
+            if (sortExpr == null) return " AND " + keyExpr + cmp;
+            String s = sortExpr;
+            if (afterSortValue() == null) {
+                return ascending ? " AND ((" + s + " IS NULL AND " + keyExpr + cmp + ") OR " + s + " IS NOT NULL)"
+                                 : " AND (" + s + " IS NULL AND " + keyExpr + cmp + ")";
+            }
+            return " AND (" + s + cmp + " OR (" + s + " = ? AND " + keyExpr + cmp + ")" +
+                    (ascending ? "" : " OR " + s + " IS NULL") + ")";
+        }
+
+        // binds the parameters of after() starting at index p; returns the next free index
+        public int bindAfter(PreparedStatement pst, int p) throws SQLException {
+            if (isFirst()) return p;
+            if (sortExpr != null && afterSortValue() != null) {
+                pst.setObject(p++, afterSortValue());
+                pst.setObject(p++, afterSortValue());
+            }
+            pst.setObject(p++, afterKey);
+            return p;
+        }
+
+        public String orderBy(String keyExpr) {
+            String dir = ascending ? " ASC" : " DESC";
+            return " ORDER BY " + (sortExpr == null ? "" : sortExpr + dir + ", ") + keyExpr + dir;
+        }
+    }
+
+    private static final int PAGE_SIZE = 200;
+
+    private final DataLoader loader;
+    private final String channel;
+    private final String noun;
+    private final JTable table;
+    private final JScrollPane scroll;
+    private final JLabel statusLabel;
+    private RowTableModel model;
+
+    private PageSource source;
+    private List<Object[]> localRows; // set instead of source for rows already held in memory
+    private boolean loading, exhausted;
+    private int generation; // bumped on reload so a late page for an old query is ignored
+
+    private String[] sortExprs; // per displayed column, null where the column cannot be sorted
+    private int sortColumn = -1;
+    private boolean ascending = true;
+
+    public PagedTable(DataLoader loader, String channel, String noun, String... columns) {
+        super(new BorderLayout(0, 4));
+        this.loader = loader;
+        this.channel = channel;
+        this.noun = noun;
+        setBackground(Color.WHITE);
+
+        model = new RowTableModel(columns);
+        table = new JTable(model);
+        table.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        table.setRowHeight(24);
+        table.setFillsViewportHeight(true);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getTableHeader().setReorderingAllowed(false);
+        scroll = new JScrollPane(table);
+        scroll.setBorder(BorderFactory.createLineBorder(new Color(230, 230, 230)));
+        scroll.getVerticalScrollBar().addAdjustmentListener(e -> loadMoreIfNeeded());
+        add(scroll, BorderLayout.CENTER);
+
+        statusLabel = new JLabel(" ");
+        statusLabel.setForeground(new Color(100, 100, 100));
+        add(statusLabel, BorderLayout.SOUTH);
+    }
+
+    public JTable getTable() {
+        return table;
+    }
+
+    // Lets the user sort by clicking a header. sqlExprs holds the ORDER BY expression for each
+    // displayed column (null if it cannot be sorted); for local rows only null/non-null matters.
+    public void enableSorting(String[] sqlExprs, int defaultColumn, boolean defaultAscending) {
+        this.sortExprs = sqlExprs;
+        this.sortColumn = defaultColumn;
+        this.ascending = defaultAscending;
+
+        TableCellRenderer base = table.getTableHeader().getDefaultRenderer();
+        table.getTableHeader().setDefaultRenderer((t, value, selected, focused, row, column) -> {
+            Component c = base.getTableCellRendererComponent(t, value, selected, focused, row, column);
+            if (c instanceof JLabel && t != null && t.convertColumnIndexToModel(column) == sortColumn) {
+                ((JLabel) c).setText(value + (ascending ? "  ▲" : "  ▼"));
+            }
+            return c;
+        });
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.convertColumnIndexToModel(table.getTableHeader().columnAtPoint(e.getPoint()));
+                if (column < 0 || column >= sortExprs.length || sortExprs[column] == null) return;
+                ascending = column != sortColumn || !ascending;
+                sortColumn = column;
+                table.getTableHeader().repaint();
+                if (localRows != null) showLocalRows();
+                else reload();
+            }
+        });
+    }
+
+    // Replaces the query and starts again from the first page.
+    public void setSource(PageSource source) {
+        this.source = source;
+        this.localRows = null;
+        reload();
+    }
+
+    // Shows rows already held in memory (same layout as a page: element 0 is the key). Used by
+    // views kept current by delta sync, where the full set is local and re-querying would be waste.
+    public void setRows(List<Object[]> rows) {
+        this.source = null;
+        this.localRows = rows;
+        showLocalRows();
+    }
+
+    public void reload() {
+        generation++;
+        model.clear();
+        exhausted = false;
+        loading = false;
+        if (source != null) loadPage();
+    }
+
+    public void showError(String message) {
+        generation++; // anything still in flight is now stale
+        loading = false;
+        model.clear();
+        statusLabel.setText(message);
+    }
+
+    // key of the selected row, or null
+    public Object selectedKey() {
+        int row = table.getSelectedRow();
+        return row < 0 ? null : model.key(table.convertRowIndexToModel(row));
+    }
+
+    // keys of every selected row, in view order; for tables switched to multiple selection
+    public List<Object> selectedKeys() {
+        List<Object> keys = new ArrayList<>();
+        for (int row : table.getSelectedRows()) keys.add(model.key(table.convertRowIndexToModel(row)));
+        return keys;
+    }
+
+    public Object[] selectedRow() {
+        int row = table.getSelectedRow();
+        return row < 0 ? null : model.row(table.convertRowIndexToModel(row));
+    }
+
+    private boolean nearBottom() {
+        JScrollBar bar = scroll.getVerticalScrollBar();
+        return bar.getValue() + bar.getVisibleAmount() >= bar.getMaximum() - 5 * table.getRowHeight();
+    }
+
+    private void loadMoreIfNeeded() {
+        if (!loading && !exhausted && source != null && nearBottom()) loadPage();
+    }
+
+    private void loadPage() {
+        loading = true;
+        statusLabel.setText("Loading...");
+        PageSource s = source;
+        String sortExpr = sortExprs == null || sortColumn < 0 ? null : sortExprs[sortColumn];
+        Page request = new Page(model.lastKey(), model.lastRow(), PAGE_SIZE, sortExpr, sortColumn, ascending);
+        int gen = generation;
+        loader.load(channel, con -> s.fetch(con, request), page -> {
+            if (gen != generation) return;
+            loading = false;
+            appendRows(page);
+            exhausted = page.size() < PAGE_SIZE;
+            updateStatus();
+            // a short first page may not fill the viewport, so no scroll event would ever come
+            SwingUtilities.invokeLater(this::loadMoreIfNeeded);
+        }, ex -> {
+            if (gen != generation) return;
+            loading = false;
+            ex.printStackTrace();
+            statusLabel.setText("Error loading " + noun + ": " + ex.getMessage());
+        });
+    }
+
+    private void showLocalRows() {
+        generation++;
+        loading = false;
+        exhausted = true;
+        Object selected = selectedKey();
+        List<Object[]> rows = localRows;
+        if (sortExprs != null && sortColumn >= 0) {
+            rows = new ArrayList<>(localRows);
+            int c = sortColumn + 1; // element 0 is the key
+            Comparator<Object[]> order = (a, b) -> compareValues(a[c], b[c]);
+            rows.sort(ascending ? order : order.reversed());
+        }
+        model.clear();
+        appendRows(rows);
+        updateStatus();
+        if (selected != null) {
+            for (int i = 0; i < model.getRowCount(); i++) {
+                if (selected.equals(model.key(i))) {
+                    int view = table.convertRowIndexToView(i);
+                    table.setRowSelectionInterval(view, view);
+                    break;
+                }
+            }
+        }
+    }
+
+    // NULLs first, like MySQL ascending; the sort is stable so ties keep the caller's order
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static int compareValues(Object a, Object b) {
+        if (a == null) return b == null ? 0 : -1;
+        if (b == null) return 1;
+        if (a instanceof String && b instanceof String) return ((String) a).compareToIgnoreCase((String) b);
+        if (a instanceof Comparable && a.getClass() == b.getClass()) return ((Comparable) a).compareTo(b);
+        return a.toString().compareTo(b.toString());
+    }
+
+    private void appendRows(List<Object[]> page) {
+        List<Object[]> rows = new ArrayList<>(page.size());
+        List<Object> keys = new ArrayList<>(page.size());
+        for (Object[] r : page) {
+            keys.add(r[0]);
+            Object[] shown = new Object[r.length - 1];
+            System.arraycopy(r, 1, shown, 0, shown.length);
+            rows.add(shown);
+        }
+        model.append(rows, keys);
+    }
+
+    private void updateStatus() {
+        int n = model.getRowCount();
+        if (n == 0 && exhausted) statusLabel.setText("No " + noun + " found.");
+        else statusLabel.setText(n + " " + noun + (exhausted ? "" : " (scroll for more)"));
+    }
+}
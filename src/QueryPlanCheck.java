@@ -0,0 +1,106 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+// Runs EXPLAIN on each query the screens issue on every refresh and fails if any of them reads its
+// main table with a full scan. The SQL is not copied here: each query comes from the class that
+// runs it (paged queries are built from a PagedTable.Page past the first, so the keyset condition
+// is part of the plan). Run it against a database with realistic data after changing a hot query
+// or the migrations (on a near-empty table MySQL may choose a scan even when an index exists):
+//   java -cp .:lib/* QueryPlanCheck
+// Exits 1 when a plan scans, so it can gate a build step. The stock upserts are not listed: EXPLAIN
+// does not show an INSERT's key lookup, and they go through MigrationRunner.STOCK_KEY by definition.
+public class QueryPlanCheck {
+    private interface Binder {
+        void bind(PreparedStatement pst) throws SQLException;
+    }
+
+    private static class HotQuery {
+        final String name, table, sql; // table = the alias EXPLAIN reports for the table that must use an index
+        final Binder binder;
+
+        HotQuery(String name, String table, String sql, Binder binder) {
+            this.name = name;
+            this.table = table;
+            this.sql = sql;
+            this.binder = binder;
+        }
+
+        HotQuery(String name, String table, String sql, Object... params) {
+            this(name, table, sql, pst -> {
+                for (int i = 0; i < params.length; i++) pst.setObject(i + 1, params[i]);
+            });
+        }
+    }
+
+    private static final Timestamp SINCE = new Timestamp(System.currentTimeMillis() - 86_400_000L);
+
+    private static final List<HotQuery> QUERIES = new ArrayList<>();
+
+    static {
+        QUERIES.add(new HotQuery("donor pending requests", "dr", DonorRequestQueries.PENDING_FOR_DONOR, 1));
+        QUERIES.add(new HotQuery("hospital request delta sync", "r", RequestSync.forHospital(1).sql(), 1, SINCE));
+        QUERIES.add(new HotQuery("seeker request delta sync", "r", RequestSync.forSeeker(1).sql(), 1, SINCE));
+        PagedTable.Page donations = later("dh.donation_date", SINCE, false);
+        QUERIES.add(new HotQuery("donation history page", "dh", DonorDashboard.donationsSql(donations), pst -> {
+            pst.setInt(1, 1);
+            pst.setInt(donations.bindAfter(pst, 2), donations.limit);
+        }));
+        QUERIES.add(new HotQuery("stock cache miss", "b", StockCache.loadSql(1), 1));
+        QUERIES.add(new HotQuery("stock cache catch-up", "hospitals", StockCache.CHANGED_SQL, SINCE));
+        QUERIES.add(new HotQuery("hospital id by name", "hospitals", ReferenceData.HOSPITAL_ID_SQL, "x"));
+        QUERIES.add(new HotQuery("donor login", "donors", LoginService.loginSql(Session.DONOR), "x", "x"));
+        QUERIES.add(new HotQuery("seeker login", "seekers", LoginService.loginSql(Session.SEEKER), "x", "x"));
+        QUERIES.add(new HotQuery("donor index catch-up", "donors",
+                new DonorChanges("age, " + EligibilityIndex.COLUMN).changedSql(), SINCE));
+        for (String column : new String[] { "name", "blood_type", "location" }) {
+            PagedTable.Page page = later(column, "m", true);
+            QUERIES.add(new HotQuery("hospital donor page by " + column, "donors",
+                    HospitalDashboard.donorPageSql(false, false, false, page),
+                    pst -> pst.setInt(page.bindAfter(pst, 1), page.limit)));
+        }
+        for (String table : new String[] { "donors", "hospitals", "seekers" }) {
+            for (String column : UserBrowser.sortExprs(table)) {
+                if (column == null) continue;
+                PagedTable.Page page = later(column, "m", true);
+                QUERIES.add(new HotQuery("admin " + table + " page by " + column, table,
+                        UserBrowser.pageSql(table, page), pst -> pst.setInt(page.bindAfter(pst, 1), page.limit)));
+            }
+        }
+        PagedTable.Page logs = later("log_date", SINCE, false);
+        QUERIES.add(new HotQuery("activity log page", "activity_logs", ActivityLogViewer.pageSql(false, false, false, logs),
+                pst -> pst.setInt(logs.bindAfter(pst, 1), logs.limit)));
+    }
+
+    // a page following a row with key 1 and the given sort value
+    private static PagedTable.Page later(String sortExpr, Object sortValue, boolean ascending) {
+        return new PagedTable.Page(1, new Object[] { sortValue }, 200, sortExpr, 0, ascending);
+    }
+
+    public static void main(String[] args) throws SQLException {
+        MigrationRunner.ensureMigrated();
+        List<String> scans = new ArrayList<>();
+        try (Connection con = DBConnection.getConnection()) {
+            System.out.printf("%-30s %-15s %-8s %-32s %s%n", "query", "table", "type", "key", "rows");
+            for (HotQuery q : QUERIES) {
+                try (PreparedStatement pst = con.prepareStatement("EXPLAIN " + q.sql)) {
+                    q.binder.bind(pst);
+                    try (ResultSet rs = pst.executeQuery()) {
+                        while (rs.next()) {
+                            String table = rs.getString("table"), type = rs.getString("type"), key = rs.getString("key");
+                            if (!q.table.equals(table)) continue;
+                            System.out.printf("%-30s %-15s %-8s %-32s %s%n", q.name, table, type, key, rs.getLong("rows"));
+                            if ("ALL".equals(type) || key == null) scans.add(q.name);
+                        }
+                    }
+                }
+            }
+        }
+        if (scans.isEmpty()) {
+            System.out.println("All " + QUERIES.size() + " hot queries use an index.");
+        } else {
+            System.out.println("Full scans: " + String.join(", ", scans));
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Small bounded cache for reference data that rarely changes (names, ids). Entries are kept in
+// LRU order, expire after a time-to-live, and can be invalidated explicitly by writers. Misses are
+// not cached, so a newly registered name is found on the next lookup.
+public class ReferenceCache<K, V> {
+    public interface Loader<K, V> {
+        V load(K key) throws java.sql.SQLException;
+    }
+
+    private final String name;
+    private final long ttlMs;
+    private final LinkedHashMap<K, Entry<V>> map;
+
+    private long hits, misses, expired, evictions;
+
+    public ReferenceCache(String name, int maxSize, long ttlMs) {
+        this.name = name;
+        this.ttlMs = ttlMs;
+        this.map = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() <= maxSize) return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    // Returns the cached value or loads it. The loader runs outside the lock, so two threads
+    // missing the same key may both load it; the values are identical and the last one wins.
+    public V get(K key, Loader<K, V> loader) throws java.sql.SQLException {
+        synchronized (this) {
+            Entry<V> e = map.get(key);
+            if (e != null) {
+                if (System.currentTimeMillis() - e.loadedAt < ttlMs) {
+                    hits++;
+                    return e.value;
+                }
+                map.remove(key);
+                expired++;
+            }
+            misses++;
+        }
+        V value = loader.load(key);
+        if (value != null) put(key, value);
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        map.put(key, new Entry<>(value, System.currentTimeMillis()));
+    }
+
+    public synchronized void invalidate(K key) {
+        map.remove(key);
+    }
+
+    public synchronized void invalidateWhere(java.util.function.Predicate<K> test) {
+        map.keySet().removeIf(test);
+    }
+
+    public synchronized void invalidateAll() {
+        map.clear();
+    }
+
+    @Override
+    public synchronized String toString() {
+        long total = hits + misses;
+        return String.format("%s[size=%d hits=%d misses=%d hitRate=%.1f%% expired=%d evicted=%d]",
+                name, map.size(), hits, misses, total == 0 ? 0.0 : 100.0 * hits / total, expired, evictions);
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long loadedAt;
+
+        Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+import java.sql.*;
+
+// Shared caches for the single-row lookups the screens keep repeating: hospital id by name and
+// user profiles (name, blood type, location) by role and id. Local writers invalidate explicitly;
+// writes from other clients are picked up through ChangeNotifier, and the TTL bounds staleness
+// in any case. Tuned with refcache.maxSize and refcache.ttlMs.
+public class ReferenceData {
+    private static final int MAX_SIZE = Integer.parseInt(DBConnection.getSetting("refcache.maxSize", "10000"));
+    private static final long TTL_MS = Long.parseLong(DBConnection.getSetting("refcache.ttlMs", "600000"));
+    static final String HOSPITAL_ID_SQL = "SELECT id FROM hospitals WHERE name = ? LIMIT 1"; // checked by QueryPlanCheck
+
+    private static final ReferenceCache<String, Integer> HOSPITAL_IDS =
+            new ReferenceCache<>("hospital-ids", MAX_SIZE, TTL_MS);
+    private static final ReferenceCache<String, Session> PROFILES =
+            new ReferenceCache<>("profiles", MAX_SIZE, TTL_MS);
+
+    static {
+        ChangeNotifier.subscribe(ChangeNotifier.HOSPITALS, () -> {
+            HOSPITAL_IDS.invalidateAll();
+            invalidateRole(Session.HOSPITAL);
+        });
+        ChangeNotifier.subscribe(ChangeNotifier.DONORS, () -> invalidateRole(Session.DONOR));
+        ChangeNotifier.subscribe(ChangeNotifier.SEEKERS, () -> invalidateRole(Session.SEEKER));
+        DBConnection.addShutdownTask(() -> {
+            if (Boolean.getBoolean("drop4life.poolStats")) System.out.println(stats());
+        });
+    }
+
+    // Id of the hospital with this name, or -1. Compared like MySQL compares names.
+    public static int hospitalId(Connection con, String name) throws SQLException {
+        Integer id = HOSPITAL_IDS.get(NameBloomFilter.normalize(name), key -> {
+            try (PreparedStatement pst = con.prepareStatement(HOSPITAL_ID_SQL)) {
+                pst.setString(1, name);
+                try (ResultSet rs = pst.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : null;
+                }
+            }
+        });
+        return id == null ? -1 : id;
+    }
+
+    // Profile of a user, or null if there is no such user.
+    public static Session profile(Connection con, String role, int id) throws SQLException {
+        return PROFILES.get(role + ":" + id, key -> LoginService.load(con, role, id));
+    }
+
+    // Seeds the profile cache, e.g. with the session a login just loaded.
+    public static void remember(Session session) {
+        PROFILES.put(session.role + ":" + session.id, session);
+    }
+
+    public static void forget(String role, int id) {
+        PROFILES.invalidate(role + ":" + id);
+        if (Session.HOSPITAL.equals(role)) HOSPITAL_IDS.invalidateAll(); // name -> id entries may point at it
+    }
+
+    // Loads every hospital in one query; the table is small and every seeker looks hospitals up.
+    public static void warmUp() {
+        try (Connection con = DBConnection.getConnection();
+             Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("SELECT id, name, location FROM hospitals")) {
+            while (rs.next()) {
+                Session h = new Session(Session.HOSPITAL, rs.getInt(1), rs.getString(2), null, rs.getString(3));
+                if (h.name != null) HOSPITAL_IDS.put(NameBloomFilter.normalize(h.name), h.id);
+                remember(h);
+            }
+        } catch (SQLException ex) {
+            System.err.println("Could not warm up reference data: " + ex.getMessage());
+        }
+    }
+
+    public static String stats() {
+        return "reference-data " + HOSPITAL_IDS + " " + PROFILES;
+    }
+
+    // A bulk change to a role table: drop that role's profiles rather than tracking which rows moved.
+    private static void invalidateRole(String role) {
+        PROFILES.invalidateWhere(key -> key.startsWith(role + ":"));
+    }
+}
@@ -11,6 +11,9 @@ public class RegisterFrame extends JFrame implements ActionListener {
     private JButton registerButton;
     private JButton backButton;
 
+    // registration runs off the EDT
+    private final DataLoader loader = new DataLoader();
+
     public RegisterFrame(String role) {
         this.role = role;
         setTitle("Register as " + role);
@@ -140,13 +143,23 @@ public class RegisterFrame extends JFrame implements ActionListener {
                     }
                 }
 
-                if (registerUser(name, age, bloodType, contact, location, password)) {
-                    JOptionPane.showMessageDialog(this, "Registration successful!");
-                    dispose();
-                    new LoginFrame();
-                } else {
-                    JOptionPane.showMessageDialog(this, "Registration failed! Check console for errors.");
-                }
+                int a = age;
+                String bt = bloodType;
+                registerButton.setEnabled(false);
+                loader.execute(con -> registerUser(con, name, a, bt, contact, location, password), ok -> {
+                    registerButton.setEnabled(true);
+                    if (ok) {
+                        JOptionPane.showMessageDialog(this, "Registration successful!");
+                        dispose();
+                        new LoginFrame();
+                    } else {
+                        JOptionPane.showMessageDialog(this, "Registration failed! Check console for errors.");
+                    }
+                }, ex -> {
+                    registerButton.setEnabled(true);
+                    ex.printStackTrace();
+                    JOptionPane.showMessageDialog(this, "Registration failed: " + ex.getMessage());
+                });
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(this, "Please enter a valid age.");
             } catch (Exception ex) {
@@ -156,79 +169,54 @@ public class RegisterFrame extends JFrame implements ActionListener {
         }
     }
 
-    private boolean registerUser(String name, int age, String bloodType, String contact, String location, String password) {
+    // Registration and stock rows commit together or not at all; the log entry is queued after
+    // commit. Runs on a background thread.
+    private boolean registerUser(Connection con, String name, int age, String bloodType, String contact,
+                                 String location, String password) throws SQLException {
         String table = role.toLowerCase() + "s";
-        String query;
-
-        if (role.equals("Hospital")) {
-            query = "INSERT INTO " + table + " (name, location, password) VALUES (?, ?, ?)";
-        } else {
-            query = "INSERT INTO " + table + " (name, age, "
-                    + (role.equals("Seeker") ? "blood_type_needed" : "blood_type")
-                    + ", contact_info, location, password) VALUES (?, ?, ?, ?, ?, ?)";
-        }
-
-        try (Connection con = DBConnection.getConnection();
-             PreparedStatement pst = con.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
 
-            pst.setString(1, name);
+        boolean autoCommit = con.getAutoCommit();
+        con.setAutoCommit(false);
+        boolean committed = false;
+        try {
+            int hospitalId = -1;
             if (role.equals("Hospital")) {
-                pst.setString(2, location);
-                pst.setString(3, password);
+                hospitalId = HospitalOnboarding.register(con, new HospitalOnboarding.Hospital(name, location, password));
             } else {
-                pst.setInt(2, age);
-                pst.setString(3, bloodType);
-                pst.setString(4, contact);
-                pst.setString(5, location);
-                pst.setString(6, password);
-            }
-
-            int affectedRows = pst.executeUpdate();
-            if (affectedRows == 0) {
-                return false;
-            }
-
-            // Get generated ID for Hospital to initialize blood stocks
-            int userId = -1;
-            if (role.equals("Hospital")) {
-                try (ResultSet rs = pst.getGeneratedKeys()) {
-                    if (rs.next()) {
-                        userId = rs.getInt(1);
-                        initializeBloodStocks(con, userId);
-                    }
+                String query = "INSERT INTO " + table + " (name, age, "
+                        + (role.equals("Seeker") ? "blood_type_needed" : "blood_type")
+                        + ", contact_info, location, password) VALUES (?, ?, ?, ?, ?, ?)";
+                try (PreparedStatement pst = con.prepareStatement(query)) {
+                    pst.setString(1, name);
+                    pst.setInt(2, age);
+                    pst.setString(3, bloodType);
+                    pst.setString(4, contact);
+                    pst.setString(5, location);
+                    pst.setString(6, password);
+                    if (pst.executeUpdate() == 0) return false;
                 }
             }
-
-            logActivity("New " + role + " registered: " + name);
-            return true;
-
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            return false;
-        }
-    }
-
-    private void initializeBloodStocks(Connection con, int hospitalId) throws SQLException {
-        String[] bloodTypes = {"A+", "A-", "B+", "B-", "O+", "O-", "AB+", "AB-"};
-        String query = "INSERT INTO blood_stocks (hospital_id, blood_type, units) VALUES (?, ?, 0)";
-        try (PreparedStatement pst = con.prepareStatement(query)) {
-            for (String type : bloodTypes) {
-                pst.setInt(1, hospitalId);
-                pst.setString(2, type);
-                pst.executeUpdate();
+            con.commit();
+            committed = true;
+            if (hospitalId != -1) {
+                HospitalOnboarding.committed(hospitalId);
+                ChangeNotifier.bump(con, table, ChangeNotifier.BLOOD_STOCKS);
+            } else {
+                ChangeNotifier.bump(con, table);
             }
+            NameBloomFilter.added(table, name);
+            ActivityLog.append("New " + role + " registered: " + name);
+            return true;
+        } finally {
+            if (!committed) con.rollback();
+            con.setAutoCommit(autoCommit);
         }
     }
 
-    private void logActivity(String description) {
-        String query = "INSERT INTO activity_logs (description) VALUES (?)";
-        try (Connection con = DBConnection.getConnection();
-             PreparedStatement pst = con.prepareStatement(query)) {
-            pst.setString(1, description);
-            pst.executeUpdate();
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-        }
+    @Override
+    public void dispose() {
+        loader.close();
+        super.dispose();
     }
 
     // Main method for quick testing
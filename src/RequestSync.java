@@ -0,0 +1,110 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Client-side copy of one hospital's or one seeker's blood requests, kept current by delta sync.
+// requests.updated_at is maintained by MySQL on every insert and update; each sync fetches only
+// rows whose updated_at is at or past the newest one already seen, so a refresh costs what changed
+// rather than the whole history. The window reaches back sync.slackMs to catch rows whose
+// transaction committed after a later row was already read; overlapping rows merge by id.
+// Deleted requests are not seen until the view is reopened.
+public class RequestSync {
+    private static final long SLACK_MS = Long.parseLong(DBConnection.getSetting("sync.slackMs", "5000"));
+
+    public static class Request {
+        public final int id;
+        public final String counterpart; // seeker name for hospitals, hospital name for seekers
+        public final String bloodNeeded, details, status;
+        public final Timestamp requestDate, updatedAt;
+
+        Request(int id, String counterpart, String bloodNeeded, String details, String status,
+                Timestamp requestDate, Timestamp updatedAt) {
+            this.id = id;
+            this.counterpart = counterpart;
+            this.bloodNeeded = bloodNeeded;
+            this.details = details;
+            this.status = status;
+            this.requestDate = requestDate;
+            this.updatedAt = updatedAt;
+        }
+    }
+
+    private final String ownerColumn;
+    private final int ownerId;
+    private final String sql;
+    private final Map<Integer, Request> rows = new HashMap<>();
+    private Timestamp highWater; // newest updated_at seen, null before the first sync
+    private int lastDelta;
+
+    private RequestSync(String ownerColumn, int ownerId, String counterpartJoin) {
+        this.ownerColumn = ownerColumn;
+        this.ownerId = ownerId;
+        this.sql = "SELECT r.id, c.name AS counterpart, s.blood_type_needed, r.details, r.status, r.request_date, r.updated_at " +
+                "FROM requests r LEFT JOIN seekers s ON s.id = r.seeker_id " + counterpartJoin +
+                " WHERE r." + ownerColumn + " = ? AND r.updated_at >= ? ORDER BY r.updated_at";
+    }
+
+    public static RequestSync forHospital(int hospitalId) {
+        return new RequestSync("hospital_id", hospitalId, "LEFT JOIN seekers c ON c.id = r.seeker_id");
+    }
+
+    public static RequestSync forSeeker(int seekerId) {
+        return new RequestSync("seeker_id", seekerId, "LEFT JOIN hospitals c ON c.id = r.hospital_id");
+    }
+
+    // Brings the local copy up to date and returns it newest first. Rows arrive in updated_at order,
+    // so if the load is cancelled part way the high-water mark never skips an unread row.
+    public synchronized List<Request> sync(Connection con) throws SQLException {
+        MigrationRunner.ensureMigrated(); // adds updated_at on older databases
+        Timestamp from = highWater == null ? new Timestamp(0) : new Timestamp(highWater.getTime() - SLACK_MS);
+        int fetched = 0;
+        try (PreparedStatement pst = con.prepareStatement(sql)) {
+            pst.setInt(1, ownerId);
+            pst.setTimestamp(2, from);
+            try (ResultSet rs = pst.executeQuery()) {
+                while (rs.next()) {
+                    Request r = new Request(rs.getInt("id"), rs.getString("counterpart"), rs.getString("blood_type_needed"),
+                            rs.getString("details"), rs.getString("status"), rs.getTimestamp("request_date"),
+                            rs.getTimestamp("updated_at"));
+                    rows.put(r.id, r);
+                    if (highWater == null || r.updatedAt.after(highWater)) highWater = r.updatedAt;
+                    fetched++;
+                }
+            }
+        }
+        lastDelta = fetched;
+        List<Request> snapshot = new ArrayList<>(rows.values());
+        snapshot.sort((a, b) -> {
+            int byDate = compareDesc(a.requestDate, b.requestDate);
+            return byDate != 0 ? byDate : Integer.compare(b.id, a.id);
+        });
+        return snapshot;
+    }
+
+    // parameters: owner id, updated_at lower bound; for QueryPlanCheck
+    String sql() {
+        return sql;
+    }
+
+    // rows fetched by the last sync (including the overlap window)
+    public synchronized int lastDelta() {
+        return lastDelta;
+    }
+
+    public synchronized int size() {
+        return rows.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "requests[" + ownerColumn + "=" + ownerId + " rows=" + rows.size() + " lastDelta=" + lastDelta + "]";
+    }
+
+    private static int compareDesc(Timestamp a, Timestamp b) {
+        if (a == null) return b == null ? 0 : 1;
+        if (b == null) return -1;
+        return b.compareTo(a);
+    }
+}
@@ -0,0 +1,65 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.List;
+
+// Read-only table model over rows of Object[] that grows a page at a time. Each row can carry a
+// hidden key (usually the database id) that is not shown as a column.
+public class RowTableModel extends AbstractTableModel {
+    private final String[] columns;
+    private final List<Object[]> rows = new ArrayList<>();
+    private final List<Object> keys = new ArrayList<>();
+
+    public RowTableModel(String... columns) {
+        this.columns = columns;
+    }
+
+    public void clear() {
+        rows.clear();
+        keys.clear();
+        fireTableDataChanged();
+    }
+
+    public void append(List<Object[]> page, List<?> pageKeys) {
+        if (page.isEmpty()) return;
+        int first = rows.size();
+        rows.addAll(page);
+        keys.addAll(pageKeys);
+        fireTableRowsInserted(first, rows.size() - 1);
+    }
+
+    public Object[] row(int index) {
+        return rows.get(index);
+    }
+
+    public Object key(int index) {
+        return keys.get(index);
+    }
+
+    public Object[] lastRow() {
+        return rows.isEmpty() ? null : rows.get(rows.size() - 1);
+    }
+
+    public Object lastKey() {
+        return keys.isEmpty() ? null : keys.get(keys.size() - 1);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return rows.get(row)[column];
+    }
+}
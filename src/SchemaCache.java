@@ -0,0 +1,45 @@
+import java.sql.*;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Caches DatabaseMetaData column discovery, which is expensive, for the life of the process.
+// Call invalidate() after changing the schema; anything derived from the cache can compare
+// version() to notice that it needs rebuilding.
+public class SchemaCache {
+    private static final Map<String, Set<String>> COLUMNS = new ConcurrentHashMap<>();
+    private static volatile int version;
+
+    // lower-cased column names of table; empty if the table does not exist
+    public static Set<String> columns(Connection con, String table) throws SQLException {
+        Set<String> cols = COLUMNS.get(table);
+        if (cols != null) return cols;
+        Set<String> found = new HashSet<>();
+        try (ResultSet rs = con.getMetaData().getColumns(con.getCatalog(), null, table, null)) {
+            while (rs.next()) found.add(rs.getString("COLUMN_NAME").toLowerCase());
+        }
+        cols = Collections.unmodifiableSet(found);
+        COLUMNS.put(table, cols);
+        return cols;
+    }
+
+    public static boolean hasColumn(Connection con, String table, String column) throws SQLException {
+        return columns(con, table).contains(column.toLowerCase());
+    }
+
+    public static int version() {
+        return version;
+    }
+
+    public static void invalidate() {
+        COLUMNS.clear();
+        version++;
+    }
+
+    public static void invalidate(String table) {
+        COLUMNS.remove(table);
+        version++;
+    }
+}
@@ -2,10 +2,10 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.sql.*;
-import javax.swing.Timer;
 
 public class SeekerDashboard extends JFrame {
     private int seekerId;
+    private Session session;
 
     // nav
     private JButton searchButton, sendRequestButton, trackStatusButton, refreshButton;
@@ -17,24 +17,37 @@ public class SeekerDashboard extends JFrame {
     // components
     private JTextField searchLocationField;
     private JTextField searchBloodField;
-    private JTextArea searchResultsArea;
+    private PagedTable searchResultsTable;
+    private JSpinner minUnitsSpinner;
 
     private JTextField sendHospitalField;
+    private HospitalSuggestions hospitalSuggestions;
     private JTextArea sendDetailsArea;
 
-    private JTextArea trackArea;
+    private PagedTable trackTable;
     private JButton logoutButton;
     
     private final Font baseFont = new Font("Segoe UI", Font.PLAIN, 14);
     private final Font titleFont = new Font("Segoe UI", Font.BOLD, 18);
-    private final Font mono = new Font("Consolas", Font.PLAIN, 15);
 
-    // auto refresh for tracking
-    private Timer trackRefreshTimer;
+    // refresh tracking when a hospital or another client changes a request
+    private ChangeNotifier.Subscription requestsSubscription;
     private String currentCard = CARD_SEARCH;
 
+    // background JDBC, results are published back on the EDT
+    private final DataLoader loader = new DataLoader();
+
+    // local copy of this seeker's requests, refreshed by delta sync
+    private final RequestSync trackSync;
+
     public SeekerDashboard(int seekerId) {
-        this.seekerId = seekerId;
+        this(Session.ofId(Session.SEEKER, seekerId));
+    }
+
+    public SeekerDashboard(Session session) {
+        this.session = session;
+        this.seekerId = session.id;
+        this.trackSync = RequestSync.forSeeker(seekerId);
         setTitle("DROP4LIFE — Seeker Dashboard");
         setSize(980, 720);
         setResizable(false);
@@ -55,12 +68,19 @@ public class SeekerDashboard extends JFrame {
         JLabel appLabel = new JLabel("  DROP4LIFE");
         appLabel.setForeground(Color.WHITE);
         appLabel.setFont(new Font("Segoe UI", Font.BOLD, 15));
-        JLabel seekerLabel = new JLabel("Seeker: " + getSeekerName() + "  (ID: " + seekerId + ")", SwingConstants.RIGHT);
+        JLabel seekerLabel = new JLabel(headerText(), SwingConstants.RIGHT);
         seekerLabel.setForeground(new Color(255, 230, 230));
         seekerLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
         topInfo.add(appLabel, BorderLayout.WEST);
         topInfo.add(seekerLabel, BorderLayout.EAST);
         topPanel.add(topInfo, BorderLayout.NORTH);
+        if (!session.hasProfile()) { // opened with only an id
+            loader.execute(con -> ReferenceData.profile(con, Session.SEEKER, seekerId), loaded -> {
+                if (loaded == null) return;
+                this.session = loaded;
+                seekerLabel.setText(headerText());
+            }, Throwable::printStackTrace);
+        }
 
         // top nav bar
         JPanel navBar = new JPanel(new FlowLayout(FlowLayout.LEFT, 12, 8));
@@ -139,21 +159,34 @@ public class SeekerDashboard extends JFrame {
         searchBloodField.setFont(baseFont);
         searchForm.add(searchBloodField, gbc);
 
-        gbc.gridx = 0; gbc.gridy = 2; gbc.gridwidth = 2;
+        gbc.gridx = 0; gbc.gridy = 2;
+        JLabel unitsLbl = new JLabel("Min. Units:");
+        unitsLbl.setFont(baseFont);
+        searchForm.add(unitsLbl, gbc);
+        gbc.gridx = 1;
+        minUnitsSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 1000, 1));
+        minUnitsSpinner.setFont(baseFont);
+        searchForm.add(minUnitsSpinner, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 3; gbc.gridwidth = 2;
         JButton sBtn = new JButton("Search");
         stylePrimary(sBtn);
         sBtn.addActionListener(e -> doSearch());
         searchForm.add(sBtn, gbc);
 
+        gbc.gridy = 4;
+        JButton nearBtn = new JButton("Nearest Hospitals");
+        stylePrimary(nearBtn);
+        nearBtn.addActionListener(e -> doNearestSearch());
+        searchForm.add(nearBtn, gbc);
+
         searchCard.add(searchForm, BorderLayout.WEST);
 
-        searchResultsArea = new JTextArea();
-        searchResultsArea.setFont(mono);
-        searchResultsArea.setEditable(false);
-        searchResultsArea.setBackground(Color.WHITE);
-        searchResultsArea.setBorder(BorderFactory.createLineBorder(new Color(230,230,230)));
-        JScrollPane sScroll = new JScrollPane(searchResultsArea);
-        searchCard.add(sScroll, BorderLayout.CENTER);
+        searchResultsTable = new PagedTable(loader, CARD_SEARCH, "hospitals",
+                "Hospital", "Location", "Compatible Units", "Exact Type", "Distance");
+        // results are ranked when loaded; no default column, so that order stands until a header is clicked
+        searchResultsTable.enableSorting(new String[] { "name", "location", "total", "exact", "km" }, -1, false);
+        searchCard.add(searchResultsTable, BorderLayout.CENTER);
 
         cards.add(searchCard, CARD_SEARCH);
 
@@ -171,6 +204,7 @@ public class SeekerDashboard extends JFrame {
         g2.gridx = 1;
         sendHospitalField = new JTextField();
         sendHospitalField.setFont(baseFont);
+        hospitalSuggestions = new HospitalSuggestions(sendHospitalField);
         sendCard.add(sendHospitalField, g2);
 
         g2.gridx = 0; g2.gridy = 1;
@@ -199,13 +233,9 @@ public class SeekerDashboard extends JFrame {
         tTitle.setBorder(BorderFactory.createEmptyBorder(6,6,6,6));
         trackCard.add(tTitle, BorderLayout.NORTH);
 
-        trackArea = new JTextArea();
-        trackArea.setFont(mono);
-        trackArea.setEditable(false);
-        trackArea.setBackground(Color.WHITE);
-        trackArea.setBorder(BorderFactory.createLineBorder(new Color(230,230,230)));
-        JScrollPane tScroll = new JScrollPane(trackArea);
-        trackCard.add(tScroll, BorderLayout.CENTER);
+        trackTable = new PagedTable(loader, CARD_TRACK, "requests", "ID", "Hospital", "Status", "Date", "Details");
+        trackTable.enableSorting(new String[] { "id", "hospital", "status", "date", null }, 3, false);
+        trackCard.add(trackTable, BorderLayout.CENTER);
 
         cards.add(trackCard, CARD_TRACK);
 
@@ -215,12 +245,10 @@ public class SeekerDashboard extends JFrame {
         setLocationRelativeTo(null);
         setVisible(true);
 
-        // auto-refresh tracker
-        trackRefreshTimer = new Timer(8_000, e -> {
+        // re-fetch tracking only when requests actually change
+        requestsSubscription = ChangeNotifier.subscribe(ChangeNotifier.REQUESTS, () -> {
             if (CARD_TRACK.equals(currentCard)) loadTrackStatus();
         });
-        trackRefreshTimer.setInitialDelay(0);
-        trackRefreshTimer.start();
 
         // initial card
         showCard(CARD_SEARCH);
@@ -247,11 +275,22 @@ public class SeekerDashboard extends JFrame {
     private void showCard(String card) {
         CardLayout cl = (CardLayout) cards.getLayout();
         cl.show(cards, card);
+        if (!card.equals(currentCard)) loader.cancelAll(); // drop loads for the card being left
         currentCard = card;
         if (CARD_TRACK.equals(card)) loadTrackStatus();
+        if (CARD_SEND.equals(card)) refreshHospitalNames();
     }
 
-    // Search hospitals and display results in searchResultsArea
+    // the name suggestions answer from memory; catch them up with new hospitals before typing starts
+    private void refreshHospitalNames() {
+        loader.load("hospital-names", con -> {
+            HospitalNameIndex.refresh(con);
+            return null;
+        }, ignored -> { });
+    }
+
+    // Hospitals in the location holding stock the seeker's type can receive (any compatible type,
+    // see StockSearch), those that can cover it from the exact type first
     private void doSearch() {
         String location = searchLocationField.getText().trim();
         String blood = searchBloodField.getText().trim();
@@ -259,29 +298,57 @@ public class SeekerDashboard extends JFrame {
             JOptionPane.showMessageDialog(this, "Enter location and blood type.");
             return;
         }
+        if (BloodTypes.index(blood) < 0) {
+            JOptionPane.showMessageDialog(this, "Enter a blood type like A+ or O-.");
+            return;
+        }
+
+        showCard(CARD_SEARCH); // before loading: switching cards cancels loads for the old one
+        int minUnits = (Integer) minUnitsSpinner.getValue();
+        loader.load(CARD_SEARCH, con -> StockSearch.search(con, location, blood, minUnits), hits -> {
+            java.util.List<Object[]> rows = new java.util.ArrayList<>(hits.size());
+            for (StockSearch.Hit h : hits) rows.add(new Object[] { h.id, h.name, h.location, h.total, h.exact, null });
+            searchResultsTable.setRows(rows);
+        }, ex -> {
+            ex.printStackTrace();
+            searchResultsTable.showError("Error loading hospitals: " + ex.getMessage());
+        });
+    }
+
+    private static final int NEAREST_LIMIT = 20;
+
+    // Hospitals nearest the location typed (or the seeker's own) that hold at least the minimum
+    // units the seeker's type can receive, nearest first.
+    private void doNearestSearch() {
+        String typed = searchLocationField.getText().trim();
+        String blood = searchBloodField.getText().trim();
+        int minUnits = (Integer) minUnitsSpinner.getValue();
+        if (BloodTypes.index(blood) < 0) {
+            JOptionPane.showMessageDialog(this, "Enter a blood type like A+ or O-.");
+            return;
+        }
+        String place = typed.isEmpty() ? session.location : typed;
 
-        SwingUtilities.invokeLater(() -> {
-            StringBuilder sb = new StringBuilder();
-            String query = "SELECT h.name, bs.units, h.location FROM hospitals h JOIN blood_stocks bs ON h.id = bs.hospital_id " +
-                           "WHERE h.location LIKE ? AND bs.blood_type = ? AND bs.units > 0 ORDER BY bs.units DESC";
-            try (Connection con = DBConnection.getConnection();
-                 PreparedStatement pst = con.prepareStatement(query)) {
-                pst.setString(1, "%" + location + "%");
-                pst.setString(2, blood);
-                ResultSet rs = pst.executeQuery();
-                while (rs.next()) {
-                    sb.append("Hospital: ").append(rs.getString("name"))
-                      .append(" | Location: ").append(rs.getString("location"))
-                      .append(" | Units: ").append(rs.getInt("units"))
-                      .append("\n");
-                }
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                sb.append("Error searching hospitals: ").append(ex.getMessage()).append("\n");
+        showCard(CARD_SEARCH);
+        // resolved on the loader's thread: the first lookup reads the gazetteer file
+        loader.load(CARD_SEARCH, con -> {
+            double[] from = Gazetteer.resolve(place);
+            return from == null ? null : GeoIndex.nearestHospitals(con, from[0], from[1], blood, minUnits, NEAREST_LIMIT);
+        }, hits -> {
+            if (hits == null) {
+                searchResultsTable.setRows(new java.util.ArrayList<>());
+                JOptionPane.showMessageDialog(this, "That location is not on the map. Enter a city name.");
+                return;
             }
-            if (sb.length() == 0) sb.append("No available hospitals found.");
-            searchResultsArea.setText(sb.toString());
-            showCard(CARD_SEARCH);
+            java.util.List<Object[]> rows = new java.util.ArrayList<>(hits.size());
+            for (GeoIndex.HospitalHit h : hits) {
+                // km to one decimal as a number, so the column sorts numerically
+                rows.add(new Object[] { h.id, h.name, h.location, h.total, h.exact, Math.round(h.km * 10) / 10.0 });
+            }
+            searchResultsTable.setRows(rows);
+        }, ex -> {
+            ex.printStackTrace();
+            searchResultsTable.showError("Error loading hospitals: " + ex.getMessage());
         });
     }
 
@@ -293,85 +360,58 @@ public class SeekerDashboard extends JFrame {
             JOptionPane.showMessageDialog(this, "Enter hospital name and details.");
             return;
         }
-        int hospitalId = getHospitalId(hospitalName);
-        if (hospitalId == -1) {
-            JOptionPane.showMessageDialog(this, "Hospital not found.");
-            return;
-        }
-
-        SwingUtilities.invokeLater(() -> {
+        int pickedId = hospitalSuggestions.hospitalId(); // resolved in memory from the suggestions
+        loader.execute(con -> {
+            int hospitalId = pickedId >= 0 ? pickedId : ReferenceData.hospitalId(con, hospitalName);
+            if (hospitalId == -1) return false;
             String q = "INSERT INTO requests (seeker_id, hospital_id, details, status, request_date) VALUES (?, ?, ?, 'Pending', NOW())";
-            try (Connection con = DBConnection.getConnection();
-                 PreparedStatement pst = con.prepareStatement(q)) {
+            try (PreparedStatement pst = con.prepareStatement(q)) {
                 pst.setInt(1, seekerId);
                 pst.setInt(2, hospitalId);
                 pst.setString(3, details);
                 pst.executeUpdate();
-                JOptionPane.showMessageDialog(this, "Request sent.");
-                sendHospitalField.setText("");
-                sendDetailsArea.setText("");
-                // switch to track card to show the new request
-                showCard(CARD_TRACK);
-                loadTrackStatus();
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(this, "Error sending request: " + ex.getMessage());
             }
+            ChangeNotifier.bump(con, ChangeNotifier.REQUESTS);
+            return true;
+        }, sent -> {
+            if (!sent) {
+                JOptionPane.showMessageDialog(this, "Hospital not found. Pick a name from the suggestions.");
+                return;
+            }
+            JOptionPane.showMessageDialog(this, "Request sent.");
+            sendHospitalField.setText("");
+            sendDetailsArea.setText("");
+            // switch to track card to show the new request
+            showCard(CARD_TRACK);
+        }, ex -> {
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Error sending request: " + ex.getMessage());
         });
     }
 
-    // Load track status for this seeker
+    // Load track status for this seeker; only requests changed since the last refresh are fetched
     private void loadTrackStatus() {
-        SwingUtilities.invokeLater(() -> {
-            StringBuilder sb = new StringBuilder();
-            String q = "SELECT r.id, h.name AS hospital_name, r.status, r.details, r.request_date " +
-                       "FROM requests r LEFT JOIN hospitals h ON r.hospital_id = h.id " +
-                       "WHERE r.seeker_id = ? ORDER BY r.request_date DESC";
-            try (Connection con = DBConnection.getConnection();
-                 PreparedStatement pst = con.prepareStatement(q)) {
-                pst.setInt(1, seekerId);
-                ResultSet rs = pst.executeQuery();
-                while (rs.next()) {
-                    sb.append("Request ID: ").append(rs.getInt("id"))
-                      .append(" | Hospital: ").append(rs.getString("hospital_name"))
-                      .append(" | Status: ").append(rs.getString("status"))
-                      .append(" | Date: ").append(rs.getTimestamp("request_date"))
-                      .append("\nDetails: ").append(rs.getString("details"))
-                      .append("\n\n");
-                }
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                sb.append("Error loading requests: ").append(ex.getMessage());
+        loader.load(CARD_TRACK, con -> trackSync.sync(con), rows -> {
+            java.util.List<Object[]> shown = new java.util.ArrayList<>(rows.size());
+            for (RequestSync.Request r : rows) {
+                shown.add(new Object[] { r.id, r.id, r.counterpart, r.status, r.requestDate, r.details });
             }
-            if (sb.length() == 0) sb.append("No requests found.");
-            trackArea.setText(sb.toString());
+            trackTable.setRows(shown);
+        }, ex -> {
+            ex.printStackTrace();
+            trackTable.showError("Error loading requests: " + ex.getMessage());
         });
     }
 
-    private int getHospitalId(String name) {
-        String q = "SELECT id FROM hospitals WHERE name = ?";
-        try (Connection con = DBConnection.getConnection();
-             PreparedStatement pst = con.prepareStatement(q)) {
-            pst.setString(1, name);
-            ResultSet rs = pst.executeQuery();
-            if (rs.next()) return rs.getInt("id");
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-        }
-        return -1;
+    private String headerText() {
+        return "Seeker: " + (session.hasProfile() ? session.name : "...") + "  (ID: " + seekerId + ")";
     }
 
-    private String getSeekerName() {
-        String q = "SELECT name FROM seekers WHERE id = ?";
-        try (Connection con = DBConnection.getConnection();
-             PreparedStatement pst = con.prepareStatement(q)) {
-            pst.setInt(1, seekerId);
-            ResultSet rs = pst.executeQuery();
-            if (rs.next()) return rs.getString("name");
-        } catch (SQLException ex) {
-            // ignore
-        }
-        return "Unknown";
+    @Override
+    public void dispose() {
+        if (requestsSubscription != null) requestsSubscription.cancel();
+        loader.close();
+        super.dispose();
     }
 
     // quick main for testing
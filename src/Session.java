@@ -0,0 +1,37 @@
+// Identity of the logged-in user, loaded once at login and handed to the dashboards so they do
+// not look the user up again. bloodType is the donor's blood type or the seeker's needed type;
+// it and location are null for admins and hospitals without a location.
+public class Session {
+    public static final String ADMIN = "Admin";
+    public static final String DONOR = "Donor";
+    public static final String HOSPITAL = "Hospital";
+    public static final String SEEKER = "Seeker";
+
+    public final String role;
+    public final int id;
+    public final String name;
+    public final String bloodType;
+    public final String location;
+
+    public Session(String role, int id, String name, String bloodType, String location) {
+        this.role = role;
+        this.id = id;
+        this.name = name;
+        this.bloodType = bloodType;
+        this.location = location;
+    }
+
+    // Session with only the id known, for opening a dashboard directly (e.g. from a test main).
+    public static Session ofId(String role, int id) {
+        return new Session(role, id, null, null, null);
+    }
+
+    public boolean hasProfile() {
+        return name != null;
+    }
+
+    @Override
+    public String toString() {
+        return role + " " + name + " (ID: " + id + ")";
+    }
+}
@@ -0,0 +1,132 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Blood stock changes. Every change is a single atomic upsert on the unique (hospital_id, blood_type)
+// key, so there is no UPDATE-then-INSERT race and a missing row costs no extra round trip.
+// submit() additionally coalesces changes arriving close together into one multi-row write, and
+// writes through to StockCache once it commits.
+public class StockAdjuster {
+    private static final String UPSERT_SQL =
+            "INSERT INTO blood_stocks (hospital_id, blood_type, units) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE units = GREATEST(units + ?, 0)"; // stock never goes below zero
+
+    private static final long FLUSH_MS = Long.parseLong(DBConnection.getSetting("stock.flushMs", "100"));
+    private static final int MAX_ROWS_PER_WRITE = 500;
+
+    // pending deltas keyed by hospital then blood type; sorted so every writer locks rows in the same order
+    private static final TreeMap<Integer, TreeMap<String, Integer>> PENDING = new TreeMap<>();
+    private static final List<CompletableFuture<Void>> WAITING = new ArrayList<>();
+    private static ScheduledExecutorService flusher;
+
+    // Applies one change on the caller's connection, inside whatever transaction it has open.
+    // Relies on MigrationRunner.STOCK_KEY; callers migrate before opening their transaction, and
+    // write through StockCache (beginWrite, touch, endWrite) around it.
+    public static void adjust(Connection con, int hospitalId, String bloodType, int delta) throws SQLException {
+        try (PreparedStatement pst = con.prepareStatement(UPSERT_SQL)) {
+            pst.setInt(1, hospitalId);
+            pst.setString(2, bloodType);
+            pst.setInt(3, Math.max(delta, 0));
+            pst.setInt(4, delta);
+            pst.executeUpdate();
+        }
+    }
+
+    // Queues a change; it is merged with other pending changes and written within stock.flushMs.
+    // The future completes once the write containing it has committed.
+    public static CompletableFuture<Void> submit(int hospitalId, String bloodType, int delta) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        synchronized (PENDING) {
+            PENDING.computeIfAbsent(hospitalId, k -> new TreeMap<>()).merge(bloodType, delta, Integer::sum);
+            WAITING.add(done);
+            if (flusher == null) {
+                flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "drop4life-stock-flusher");
+                    t.setDaemon(true);
+                    return t;
+                });
+                DBConnection.addShutdownTask(StockAdjuster::flush);
+            }
+            if (WAITING.size() == 1) flusher.schedule(StockAdjuster::flush, FLUSH_MS, TimeUnit.MILLISECONDS);
+        }
+        return done;
+    }
+
+    // Writes everything pending now. Safe to call from any thread.
+    public static void flush() {
+        TreeMap<Integer, TreeMap<String, Integer>> batch;
+        List<CompletableFuture<Void>> waiting;
+        synchronized (PENDING) {
+            if (WAITING.isEmpty()) return;
+            batch = new TreeMap<>(PENDING);
+            waiting = new ArrayList<>(WAITING);
+            PENDING.clear();
+            WAITING.clear();
+        }
+        try (Connection con = DBConnection.getConnection()) {
+            write(con, batch);
+            for (CompletableFuture<Void> f : waiting) f.complete(null);
+        } catch (Throwable ex) {
+            // whatever went wrong, nobody may be left waiting on a write that will never come
+            for (CompletableFuture<Void> f : waiting) f.completeExceptionally(ex);
+            if (!(ex instanceof SQLException)) System.err.println("Stock flush failed: " + ex);
+        }
+    }
+
+    private static void write(Connection con, TreeMap<Integer, TreeMap<String, Integer>> batch) throws SQLException {
+        MigrationRunner.ensureMigrated(); // the upserts rely on MigrationRunner.STOCK_KEY
+        List<Object[]> rows = new ArrayList<>();
+        List<Object[]> removals = new ArrayList<>(); // can't be multi-row: a fresh row must not start negative
+        for (Map.Entry<Integer, TreeMap<String, Integer>> h : batch.entrySet()) {
+            for (Map.Entry<String, Integer> bt : h.getValue().entrySet()) {
+                Object[] row = { h.getKey(), bt.getKey(), bt.getValue() };
+                if (bt.getValue() > 0) rows.add(row);
+                else if (bt.getValue() < 0) removals.add(row);
+            }
+        }
+        if (rows.isEmpty() && removals.isEmpty()) return;
+
+        boolean autoCommit = con.getAutoCommit();
+        con.setAutoCommit(false);
+        StockCache.beginWrite();
+        boolean committed = false;
+        Map<Integer, Long> versions = null;
+        try {
+            for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_WRITE) {
+                List<Object[]> chunk = rows.subList(from, Math.min(rows.size(), from + MAX_ROWS_PER_WRITE));
+                StringBuilder sql = new StringBuilder("INSERT INTO blood_stocks (hospital_id, blood_type, units) VALUES ");
+                for (int i = 0; i < chunk.size(); i++) sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+                // the inserted value of a fresh row is its delta; an existing row adds the delta
+                sql.append(" ON DUPLICATE KEY UPDATE units = blood_stocks.units + VALUES(units)");
+                try (PreparedStatement pst = con.prepareStatement(sql.toString())) {
+                    int p = 1;
+                    for (Object[] r : chunk) {
+                        pst.setInt(p++, (Integer) r[0]);
+                        pst.setString(p++, (String) r[1]);
+                        pst.setInt(p++, (Integer) r[2]);
+                    }
+                    pst.executeUpdate();
+                }
+            }
+            for (Object[] r : removals) adjust(con, (Integer) r[0], (String) r[1], (Integer) r[2]);
+            versions = StockCache.touch(con, batch.keySet());
+            con.commit();
+            committed = true;
+            ChangeNotifier.bump(con, ChangeNotifier.BLOOD_STOCKS);
+        } finally {
+            if (committed) {
+                StockCache.endWrite(batch, versions);
+            } else {
+                StockCache.abortWrite();
+                con.rollback();
+            }
+            con.setAutoCommit(autoCommit);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Blood stock per hospital, held as one int[8] per hospital: slot i is BloodTypes.ALL[i], NONE where
+// the hospital has no row for that type. Reads come from memory; misses are loaded in one query per
+// batch (read-through). StockAdjuster and AcceptDonation write through: their deltas are applied to
+// the cached arrays once they commit. Other stock writers store or evict the hospitals they touched.
+//
+// Coherence is per hospital. Every stock write bumps hospitals.stock_version and stamps
+// stock_updated_at in its transaction (touch()), and each cached entry records the version it
+// reflects. After a blood_stocks change notification the next read fetches the hospitals stamped
+// since the newest stamp seen (reaching back sync.slackMs, as RequestSync does) and evicts only
+// those whose version differs, so another client's write costs one hospital and our own
+// write-through none. Every write and eviction also advances a generation; a load that overlapped
+// one is returned but not kept, so a read made before a write can never be cached after it.
+public class StockCache {
+    public static final int NONE = Integer.MIN_VALUE; // no stock row for this type
+    private static final int MAX_IDS_PER_QUERY = 1000;
+    private static final long SLACK_MS = Long.parseLong(DBConnection.getSetting("sync.slackMs", "5000"));
+
+    private static final String TOUCH_SQL =
+            "UPDATE hospitals SET stock_version = stock_version + 1, stock_updated_at = CURRENT_TIMESTAMP(3) WHERE id IN ";
+    static final String CHANGED_SQL = // uses idx_hospitals_stock_updated
+            "SELECT id, stock_version, stock_updated_at FROM hospitals WHERE stock_updated_at >= ?";
+
+    private static class Entry {
+        final long version;
+        final int[] units;
+
+        Entry(long version, int[] units) {
+            this.version = version;
+            this.units = units;
+        }
+    }
+
+    // guarded by the class lock
+    private static final Map<Integer, Entry> STOCK = new HashMap<>();
+    private static long generation;
+    private static int writing; // write-throughs begun and not yet ended
+    private static long hits, misses, evictions;
+
+    private static final Object CATCH_UP = new Object(); // one catch-up at a time, guards highWater
+    private static Timestamp highWater; // newest stock_updated_at seen, null until the first read
+    private static volatile boolean changed;
+
+    static {
+        ChangeNotifier.subscribe(ChangeNotifier.BLOOD_STOCKS, () -> changed = true);
+        DBConnection.addShutdownTask(() -> {
+            if (Boolean.getBoolean("drop4life.poolStats")) System.out.println(stats());
+        });
+    }
+
+    // Stock of one hospital, by BloodTypes index. The array is the caller's own.
+    public static int[] units(Connection con, int hospitalId) throws SQLException {
+        return units(con, new int[] { hospitalId }).get(hospitalId);
+    }
+
+    // Stock of each hospital (ids distinct), by BloodTypes index; all NONE for hospitals without rows.
+    public static Map<Integer, int[]> units(Connection con, int[] hospitalIds) throws SQLException {
+        MigrationRunner.ensureMigrated(); // adds the stock version columns on older databases
+        catchUp(con);
+        Map<Integer, int[]> result = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        long stamp;
+        synchronized (StockCache.class) {
+            for (int id : hospitalIds) {
+                Entry e = STOCK.get(id);
+                if (e != null) result.put(id, e.units.clone());
+                else missing.add(id);
+            }
+            hits += hospitalIds.length - missing.size();
+            misses += missing.size();
+            if (missing.isEmpty()) return result;
+            stamp = writing == 0 ? generation : -1;
+        }
+
+        Map<Integer, Entry> loaded = load(con, missing);
+        synchronized (StockCache.class) {
+            if (stamp == generation && writing == 0) STOCK.putAll(loaded);
+        }
+        for (int id : missing) {
+            Entry e = loaded.get(id);
+            result.put(id, e == null ? empty() : e.units.clone());
+        }
+        return result;
+    }
+
+    // Inside a stock write's transaction, after its changes: bumps the version of each hospital
+    // written and returns the new versions (the bump keeps the rows locked until commit). Ids
+    // without a hospitals row are left out, and endWrite evicts them.
+    public static Map<Integer, Long> touch(Connection con, Collection<Integer> hospitalIds) throws SQLException {
+        Map<Integer, Long> versions = new HashMap<>();
+        List<Integer> ids = new ArrayList<>(hospitalIds);
+        for (int from = 0; from < ids.size(); from += MAX_IDS_PER_QUERY) {
+            List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IDS_PER_QUERY));
+            try (PreparedStatement pst = con.prepareStatement(TOUCH_SQL + "(" + placeholders(chunk.size()) + ")")) {
+                for (int i = 0; i < chunk.size(); i++) pst.setInt(i + 1, chunk.get(i));
+                pst.executeUpdate();
+            }
+            try (PreparedStatement pst = con.prepareStatement(
+                    "SELECT id, stock_version FROM hospitals WHERE id IN (" + placeholders(chunk.size()) + ")")) {
+                for (int i = 0; i < chunk.size(); i++) pst.setInt(i + 1, chunk.get(i));
+                try (ResultSet rs = pst.executeQuery()) {
+                    while (rs.next()) versions.put(rs.getInt(1), rs.getLong(2));
+                }
+            }
+        }
+        return versions;
+    }
+
+    // Call before a write-through's transaction starts; loads are not kept until it ends.
+    public static synchronized void beginWrite() {
+        writing++;
+        generation++;
+    }
+
+    // The write committed with the versions touch() returned; applies its deltas (hospital -> type
+    // -> units) the way StockAdjuster's upserts do, never below zero, to each cached hospital exactly
+    // one version behind. A hospital another client changed in between is evicted instead.
+    public static synchronized void endWrite(Map<Integer, ? extends Map<String, Integer>> deltas,
+                                             Map<Integer, Long> versions) {
+        writing--;
+        generation++;
+        for (Map.Entry<Integer, ? extends Map<String, Integer>> h : deltas.entrySet()) {
+            Entry e = STOCK.get(h.getKey());
+            if (e == null) continue;
+            Long version = versions.get(h.getKey());
+            if (version == null || e.version != version - 1) {
+                STOCK.remove(h.getKey());
+                evictions++;
+                continue;
+            }
+            int[] u = e.units.clone();
+            for (Map.Entry<String, Integer> bt : h.getValue().entrySet()) {
+                int i = BloodTypes.index(bt.getKey());
+                if (i < 0) continue;
+                u[i] = Math.max(u[i] == NONE ? bt.getValue() : u[i] + bt.getValue(), 0);
+            }
+            STOCK.put(h.getKey(), new Entry(version, u));
+        }
+    }
+
+    // The write-through failed and was rolled back.
+    public static synchronized void abortWrite() {
+        writing--;
+        generation++;
+    }
+
+    // A hospital's complete stock at `version` after a committed write, e.g. the zero rows of a new hospital.
+    public static synchronized void store(int hospitalId, long version, int[] units) {
+        generation++;
+        STOCK.put(hospitalId, new Entry(version, units.clone()));
+    }
+
+    // Drops hospitals whose stock changed in a committed write the cache cannot replay.
+    public static synchronized void evict(Iterable<Integer> hospitalIds) {
+        generation++;
+        for (int id : hospitalIds) {
+            if (STOCK.remove(id) != null) evictions++;
+        }
+    }
+
+    public static synchronized String stats() {
+        return "stock-cache[hospitals=" + STOCK.size() + " hits=" + hits + " misses=" + misses
+                + " evictions=" + evictions + "]";
+    }
+
+    // Evicts the hospitals other clients changed since the last look. The first call only records
+    // where later ones start from, since nothing is cached yet.
+    private static void catchUp(Connection con) throws SQLException {
+        synchronized (CATCH_UP) {
+            if (highWater != null && !changed) return;
+            changed = false; // changes landing during the read mark it changed again
+            if (highWater == null) {
+                try (Statement st = con.createStatement();
+                     ResultSet rs = st.executeQuery("SELECT MAX(stock_updated_at) FROM hospitals")) {
+                    rs.next();
+                    Timestamp newest = rs.getTimestamp(1);
+                    highWater = newest == null ? new Timestamp(0) : newest;
+                }
+                return;
+            }
+            Map<Integer, Long> versions = new HashMap<>();
+            Timestamp newest = highWater;
+            try (PreparedStatement pst = con.prepareStatement(CHANGED_SQL)) {
+                pst.setTimestamp(1, new Timestamp(highWater.getTime() - SLACK_MS));
+                try (ResultSet rs = pst.executeQuery()) {
+                    while (rs.next()) {
+                        versions.put(rs.getInt(1), rs.getLong(2));
+                        Timestamp t = rs.getTimestamp(3);
+                        if (t.after(newest)) newest = t;
+                    }
+                }
+            }
+            highWater = newest;
+            synchronized (StockCache.class) {
+                generation++;
+                for (Map.Entry<Integer, Long> v : versions.entrySet()) {
+                    Entry e = STOCK.get(v.getKey());
+                    if (e != null && e.version != v.getValue()) {
+                        STOCK.remove(v.getKey());
+                        evictions++;
+                    }
+                }
+            }
+        }
+    }
+
+    // One statement per chunk, so each hospital's version and rows come from the same snapshot.
+    static String loadSql(int ids) {
+        return "SELECT h.id, h.stock_version, b.blood_type, b.units FROM hospitals h "
+                + "LEFT JOIN blood_stocks b ON b.hospital_id = h.id WHERE h.id IN (" + placeholders(ids) + ")";
+    }
+
+    // ids without a hospitals row are left out
+    private static Map<Integer, Entry> load(Connection con, List<Integer> ids) throws SQLException {
+        Map<Integer, Entry> loaded = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += MAX_IDS_PER_QUERY) {
+            List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IDS_PER_QUERY));
+            try (PreparedStatement pst = con.prepareStatement(loadSql(chunk.size()))) {
+                for (int i = 0; i < chunk.size(); i++) pst.setInt(i + 1, chunk.get(i));
+                try (ResultSet rs = pst.executeQuery()) {
+                    while (rs.next()) {
+                        long version = rs.getLong(2);
+                        Entry e = loaded.computeIfAbsent(rs.getInt(1), id -> new Entry(version, empty()));
+                        int i = BloodTypes.index(rs.getString(3)); // -1 for the NULL of a hospital without rows
+                        if (i >= 0) e.units[i] = rs.getInt(4);
+                    }
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private static String placeholders(int n) {
+        return String.join(", ", java.util.Collections.nCopies(n, "?"));
+    }
+
+    private static int[] empty() {
+        int[] u = new int[BloodTypes.ALL.length];
+        java.util.Arrays.fill(u, NONE);
+        return u;
+    }
+}
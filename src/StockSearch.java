@@ -0,0 +1,88 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Seeker stock search across every blood type the recipient can receive (BloodTypes). The
+// hospitals in the location come from LocationIndex and their stock from StockCache, so the
+// compatible units are summed in memory; only the hospitals that qualify are looked up by primary
+// key for their name. Ranked: hospitals that can cover the request from the exact type alone come
+// first (so scarce universal stock such as O- is not drawn on needlessly), then by total
+// compatible units, then by name.
+public class StockSearch {
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
+    public static class Hit {
+        public final int id;
+        public String name, location;
+        public final int total, exact; // compatible units, and units of the recipient's own type
+
+        Hit(int id, int total, int exact) {
+            this.id = id;
+            this.total = total;
+            this.exact = exact;
+        }
+    }
+
+    // Hospitals in location holding at least minUnits the recipient can receive, best first.
+    public static List<Hit> search(Connection con, String location, String recipientType, int minUnits) throws SQLException {
+        int recipient = BloodTypes.index(recipientType);
+        int[] ids = LocationIndex.matching(con, location);
+        List<Hit> hits = new ArrayList<>();
+        if (recipient < 0 || ids.length == 0) return hits;
+
+        Map<Integer, Hit> byHospital = new LinkedHashMap<>();
+        for (Map.Entry<Integer, int[]> e : StockCache.units(con, ids).entrySet()) {
+            int[] u = compatibleUnits(e.getValue(), recipient);
+            if (u[0] > 0 && u[0] >= minUnits) byHospital.put(e.getKey(), new Hit(e.getKey(), u[0], u[1]));
+        }
+        List<Integer> found = new ArrayList<>(byHospital.keySet());
+        for (int from = 0; from < found.size(); from += MAX_IDS_PER_QUERY) {
+            List<Integer> chunk = found.subList(from, Math.min(found.size(), from + MAX_IDS_PER_QUERY));
+            try (PreparedStatement pst = con.prepareStatement(
+                    "SELECT id, name, location FROM hospitals WHERE id IN (" + placeholders(chunk.size()) + ")")) {
+                for (int i = 0; i < chunk.size(); i++) pst.setInt(i + 1, chunk.get(i));
+                try (ResultSet rs = pst.executeQuery()) {
+                    while (rs.next()) {
+                        Hit h = byHospital.get(rs.getInt(1));
+                        h.name = rs.getString(2);
+                        h.location = rs.getString(3);
+                        hits.add(h);
+                    }
+                }
+            }
+        }
+        hits.sort(rank(minUnits));
+        return hits;
+    }
+
+    // {units of every type the recipient (a BloodTypes index) can receive, units of its own type},
+    // from a StockCache array
+    static int[] compatibleUnits(int[] units, int recipient) {
+        int donors = BloodTypes.donorsFor(BloodTypes.ALL[recipient]);
+        int total = 0;
+        for (int d = 0; d < units.length; d++) {
+            if ((donors & (1 << d)) != 0 && units[d] > 0) total += units[d];
+        }
+        return new int[] { total, Math.max(units[recipient], 0) };
+    }
+
+    static Comparator<Hit> rank(int minUnits) {
+        return (a, b) -> {
+            boolean aExact = a.exact >= minUnits, bExact = b.exact >= minUnits;
+            if (aExact != bExact) return aExact ? -1 : 1;
+            if (a.total != b.total) return Integer.compare(b.total, a.total);
+            String an = a.name == null ? "" : a.name, bn = b.name == null ? "" : b.name;
+            int byName = an.compareToIgnoreCase(bn);
+            return byName != 0 ? byName : Integer.compare(a.id, b.id);
+        };
+    }
+
+    static String placeholders(int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) sb.append(i == 0 ? "?" : ", ?");
+        return sb.toString();
+    }
+}
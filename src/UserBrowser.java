@@ -0,0 +1,362 @@
+import javax.swing.*;
+import java.awt.*;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+// Admin view over donors, hospitals and seekers. Only the displayed columns are selected (never
+// passwords), rows are paged by a PagedTable with a keyset cursor on (sort column, id), and search
+// and header-click sorting run in SQL so it stays responsive with hundreds of thousands of rows.
+// Only columns with a (column, id) index can be sorted. Bulk add and remove each run as one
+// batched transaction.
+public class UserBrowser extends JDialog {
+    private static final int DELETE_CHUNK = 500;
+    private static final String CHANNEL = "users";
+    private static final String ANY = "Any";
+
+    private static class Role {
+        final String label, table, bloodColumn, sessionRole;
+        final String[] columns, headers;
+
+        Role(String label, String table, String sessionRole, String bloodColumn, String[] columns, String[] headers) {
+            this.label = label;
+            this.table = table;
+            this.sessionRole = sessionRole;
+            this.bloodColumn = bloodColumn;
+            this.columns = columns;
+            this.headers = headers;
+        }
+
+        // ORDER BY expression per column: those MigrationRunner indexes with id, null for the rest
+        String[] sortExprs() {
+            String[] exprs = new String[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                String c = columns[i];
+                if (c.equals("name") || c.equals("location") || c.equals(bloodColumn)) exprs[i] = c;
+            }
+            return exprs;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private static final Role[] ROLES = {
+        new Role("Donors", "donors", Session.DONOR, "blood_type",
+                new String[] {"name", "age", "blood_type", "location", "contact_info"},
+                new String[] {"Name", "Age", "Blood Type", "Location", "Contact"}),
+        new Role("Hospitals", "hospitals", Session.HOSPITAL, null,
+                new String[] {"name", "location"},
+                new String[] {"Name", "Location"}),
+        new Role("Seekers", "seekers", Session.SEEKER, "blood_type_needed",
+                new String[] {"name", "age", "blood_type_needed", "location", "contact_info"},
+                new String[] {"Name", "Age", "Blood Needed", "Location", "Contact"}),
+    };
+
+    private final DataLoader loader = new DataLoader();
+
+    private JComboBox<Role> roleCombo;
+    private JTextField nameField, locationField;
+    private JComboBox<String> bloodCombo;
+    private JPanel root;
+
+    private Role role;
+    private PagedTable userTable; // one per role, since the columns differ
+
+    public UserBrowser(Frame owner) {
+        super(owner, "Manage Users", false);
+        setSize(940, 600);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        root = new JPanel(new BorderLayout(8, 8));
+        root.setBackground(Color.WHITE);
+        root.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        JPanel filters = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 4));
+        filters.setBackground(Color.WHITE);
+        roleCombo = new JComboBox<>(ROLES);
+        roleCombo.addActionListener(e -> applyFilter());
+        filters.add(roleCombo);
+        filters.add(new JLabel("Name starts with:"));
+        nameField = new JTextField(10);
+        nameField.addActionListener(e -> applyFilter());
+        filters.add(nameField);
+        filters.add(new JLabel("Blood:"));
+        bloodCombo = new JComboBox<>(bloodChoices());
+        bloodCombo.addActionListener(e -> applyFilter());
+        filters.add(bloodCombo);
+        filters.add(new JLabel("Location starts with:"));
+        locationField = new JTextField(9);
+        locationField.addActionListener(e -> applyFilter());
+        filters.add(locationField);
+        JButton search = new JButton("Search");
+        styleButton(search);
+        search.addActionListener(e -> applyFilter());
+        filters.add(search);
+        root.add(filters, BorderLayout.NORTH);
+
+        JPanel actions = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 0));
+        actions.setBackground(Color.WHITE);
+        JButton add = new JButton("Bulk Add...");
+        styleButton(add);
+        add.addActionListener(e -> showBulkAdd());
+        actions.add(add);
+        JButton remove = new JButton("Remove Selected");
+        styleButton(remove);
+        remove.addActionListener(e -> removeSelected());
+        actions.add(remove);
+        root.add(actions, BorderLayout.SOUTH);
+
+        setContentPane(root);
+        setLocationRelativeTo(owner);
+        setVisible(true);
+
+        applyFilter();
+    }
+
+    private static String[] bloodChoices() {
+        String[] choices = new String[BloodTypes.ALL.length + 1];
+        choices[0] = ANY;
+        System.arraycopy(BloodTypes.ALL, 0, choices, 1, BloodTypes.ALL.length);
+        return choices;
+    }
+
+    private void styleButton(JButton b) {
+        b.setBackground(new Color(178, 34, 34));
+        b.setForeground(Color.WHITE);
+        b.setFocusPainted(false);
+    }
+
+    private void applyFilter() {
+        Role selected = (Role) roleCombo.getSelectedItem();
+        if (selected != role) {
+            role = selected;
+            if (userTable != null) root.remove(userTable);
+            userTable = new PagedTable(loader, CHANNEL, role.label.toLowerCase(), role.headers);
+            userTable.getTable().setRowHeight(22);
+            userTable.getTable().setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+            userTable.enableSorting(role.sortExprs(), 0, true);
+            root.add(userTable, BorderLayout.CENTER);
+            root.revalidate();
+        }
+        bloodCombo.setEnabled(role.bloodColumn != null);
+
+        Role r = role;
+        String name = emptyToNull(nameField.getText());
+        String location = emptyToNull(locationField.getText());
+        String blood = (String) bloodCombo.getSelectedItem();
+        String bloodFilter = (r.bloodColumn == null || ANY.equals(blood)) ? null : blood;
+        userTable.setSource((con, page) -> fetchPage(con, r, name, bloodFilter, location, page));
+    }
+
+    private static String pageSql(Role r, boolean name, boolean blood, boolean location, PagedTable.Page page) {
+        StringBuilder q = new StringBuilder("SELECT id, ").append(String.join(", ", r.columns))
+                .append(" FROM ").append(r.table).append(" WHERE 1 = 1");
+        if (name) q.append(" AND name LIKE ?");
+        if (blood) q.append(" AND ").append(r.bloodColumn).append(" = ?");
+        if (location) q.append(" AND location LIKE ?");
+        return q.append(page.after("id")).append(page.orderBy("id")).append(" LIMIT ?").toString();
+    }
+
+    // The page query for a table with no filters, and the columns it can be sorted by; for QueryPlanCheck.
+    static String pageSql(String table, PagedTable.Page page) {
+        for (Role r : ROLES) if (r.table.equals(table)) return pageSql(r, false, false, false, page);
+        throw new IllegalArgumentException("Unknown table: " + table);
+    }
+
+    static String[] sortExprs(String table) {
+        for (Role r : ROLES) if (r.table.equals(table)) return r.sortExprs();
+        throw new IllegalArgumentException("Unknown table: " + table);
+    }
+
+    // runs on a background thread; the first value of each returned row is the id
+    private static List<Object[]> fetchPage(Connection con, Role r, String name, String blood, String location,
+                                            PagedTable.Page page) throws SQLException {
+        List<Object[]> rows = new ArrayList<>(page.limit);
+        try (PreparedStatement pst = con.prepareStatement(pageSql(r, name != null, blood != null, location != null, page))) {
+            int p = 1;
+            if (name != null) pst.setString(p++, DBConnection.escapeLike(name) + "%");
+            if (blood != null) pst.setString(p++, blood);
+            if (location != null) pst.setString(p++, DBConnection.escapeLike(location) + "%");
+            p = page.bindAfter(pst, p);
+            pst.setInt(p, page.limit);
+            try (ResultSet rs = pst.executeQuery()) {
+                int n = r.columns.length + 1;
+                while (rs.next()) {
+                    Object[] row = new Object[n];
+                    row[0] = rs.getInt(1);
+                    for (int i = 2; i <= n; i++) row[i - 1] = rs.getObject(i);
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    // ---- bulk add ----
+
+    private void showBulkAdd() {
+        Role r = role;
+        boolean hospital = r.bloodColumn == null;
+        String format = hospital ? "name, location, password" : "name, age, blood type, contact, location, password";
+        JTextArea input = new JTextArea(12, 50);
+        JPanel panel = new JPanel(new BorderLayout(6, 6));
+        panel.add(new JLabel("One " + r.label.toLowerCase().replaceAll("s$", "") + " per line: " + format), BorderLayout.NORTH);
+        panel.add(new JScrollPane(input), BorderLayout.CENTER);
+        int ok = JOptionPane.showConfirmDialog(this, panel, "Bulk Add " + r.label,
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (ok != JOptionPane.OK_OPTION) return;
+
+        List<String[]> records = new ArrayList<>();
+        String[] lines = input.getText().split("\\R");
+        int expected = hospital ? 3 : 6;
+        for (int i = 0; i < lines.length; i++) {
+            if (lines[i].trim().isEmpty()) continue;
+            String[] parts = lines[i].split(",", -1);
+            if (parts.length != expected) {
+                JOptionPane.showMessageDialog(this, "Line " + (i + 1) + ": expected " + expected + " values (" + format + ").");
+                return;
+            }
+            for (int j = 0; j < parts.length; j++) parts[j] = parts[j].trim();
+            if (!hospital) {
+                try {
+                    Integer.parseInt(parts[1]);
+                } catch (NumberFormatException ex) {
+                    JOptionPane.showMessageDialog(this, "Line " + (i + 1) + ": age must be a number.");
+                    return;
+                }
+                int type = BloodTypes.index(parts[2]);
+                if (type < 0) {
+                    JOptionPane.showMessageDialog(this, "Line " + (i + 1) + ": blood type must be one of "
+                            + String.join(", ", BloodTypes.ALL) + ".");
+                    return;
+                }
+                parts[2] = BloodTypes.ALL[type];
+            }
+            if (parts[0].isEmpty() || parts[expected - 1].isEmpty()) {
+                JOptionPane.showMessageDialog(this, "Line " + (i + 1) + ": name and password are required.");
+                return;
+            }
+            records.add(parts);
+        }
+        if (records.isEmpty()) return;
+
+        loader.execute(con -> insertAll(con, r, records), n -> {
+            ActivityLog.append("Admin added " + n + " " + r.table);
+            JOptionPane.showMessageDialog(this, "Added " + n + " " + r.label.toLowerCase() + ".");
+            applyFilter();
+        }, ex -> {
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Bulk add failed, nothing was added: " + ex.getMessage());
+        });
+    }
+
+    // runs on a background thread
+    private static int insertAll(Connection con, Role r, List<String[]> records) throws SQLException {
+        if (r.bloodColumn == null) {
+            List<HospitalOnboarding.Hospital> hospitals = new ArrayList<>();
+            for (String[] p : records) hospitals.add(new HospitalOnboarding.Hospital(p[0], p[1], p[2]));
+            return HospitalOnboarding.registerAll(hospitals).length;
+        }
+        String sql = "INSERT INTO " + r.table + " (name, age, " + r.bloodColumn
+                + ", contact_info, location, password) VALUES (?, ?, ?, ?, ?, ?)";
+        boolean autoCommit = con.getAutoCommit();
+        con.setAutoCommit(false);
+        boolean committed = false;
+        try (PreparedStatement pst = con.prepareStatement(sql)) {
+            for (String[] p : records) {
+                pst.setString(1, p[0]);
+                pst.setInt(2, Integer.parseInt(p[1]));
+                pst.setString(3, p[2]);
+                pst.setString(4, p[3]);
+                pst.setString(5, p[4]);
+                pst.setString(6, p[5]);
+                pst.addBatch();
+            }
+            pst.executeBatch();
+            con.commit();
+            committed = true;
+            ChangeNotifier.bump(con, r.table);
+            for (String[] p : records) NameBloomFilter.added(r.table, p[0]);
+            return records.size();
+        } finally {
+            if (!committed) con.rollback();
+            con.setAutoCommit(autoCommit);
+        }
+    }
+
+    // ---- bulk remove ----
+
+    private void removeSelected() {
+        List<Integer> ids = new ArrayList<>();
+        for (Object key : userTable.selectedKeys()) ids.add((Integer) key);
+        if (ids.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Select the rows to remove first.");
+            return;
+        }
+        Role r = role;
+        int confirm = JOptionPane.showConfirmDialog(this,
+                "Remove " + ids.size() + " " + r.label.toLowerCase() + "? This cannot be undone.",
+                "Confirm Remove", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+        if (confirm != JOptionPane.YES_OPTION) return;
+
+        loader.execute(con -> deleteAll(con, r, ids), n -> {
+            ActivityLog.append("Admin removed " + n + " " + r.table);
+            JOptionPane.showMessageDialog(this, "Removed " + n + " " + r.label.toLowerCase() + ".");
+            applyFilter();
+        }, ex -> {
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Remove failed, nothing was removed: " + ex.getMessage());
+        });
+    }
+
+    // runs on a background thread
+    private static int deleteAll(Connection con, Role r, List<Integer> ids) throws SQLException {
+        boolean autoCommit = con.getAutoCommit();
+        con.setAutoCommit(false);
+        boolean committed = false;
+        try {
+            int removed = 0;
+            for (int from = 0; from < ids.size(); from += DELETE_CHUNK) {
+                List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + DELETE_CHUNK));
+                String in = String.join(", ", java.util.Collections.nCopies(chunk.size(), "?"));
+                if (r.bloodColumn == null) {
+                    try (PreparedStatement pst = con.prepareStatement("DELETE FROM blood_stocks WHERE hospital_id IN (" + in + ")")) {
+                        for (int i = 0; i < chunk.size(); i++) pst.setInt(i + 1, chunk.get(i));
+                        pst.executeUpdate();
+                    }
+                }
+                try (PreparedStatement pst = con.prepareStatement("DELETE FROM " + r.table + " WHERE id IN (" + in + ")")) {
+                    for (int i = 0; i < chunk.size(); i++) pst.setInt(i + 1, chunk.get(i));
+                    removed += pst.executeUpdate();
+                }
+            }
+            con.commit();
+            committed = true;
+            if (r.bloodColumn == null) {
+                StockCache.evict(ids);
+                ChangeNotifier.bump(con, r.table, ChangeNotifier.BLOOD_STOCKS);
+            } else {
+                ChangeNotifier.bump(con, r.table);
+            }
+            for (int id : ids) ReferenceData.forget(r.sessionRole, id);
+            return removed;
+        } finally {
+            if (!committed) con.rollback();
+            con.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static String emptyToNull(String s) {
+        s = s.trim();
+        return s.isEmpty() ? null : s;
+    }
+
+    @Override
+    public void dispose() {
+        loader.close();
+        super.dispose();
+    }
+}